@@ -0,0 +1,32 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.util.Random;
+
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import picocli.CommandLine;
+
+/**
+ * Builds the seating plans and scenarios shared by the benchmarks.
+ */
+final class BenchmarkScenarios {
+
+    private BenchmarkScenarios() {
+    }
+
+    /*
+     * A seating plan set up as if from the command line, the people file isn't read as the scenario is built in code
+     */
+    static SeatingPlan newSeatingPlan(int courses, String solutionModel, int iterations) {
+        SeatingPlan seatingPlan = new SeatingPlan();
+        new CommandLine(seatingPlan).parseArgs("-pf", "unused", "-c", String.valueOf(courses), "-so", solutionModel,
+                "-i", String.valueOf(iterations));
+        return seatingPlan;
+    }
+
+    /*
+     * A scenario with one table per host, always the same for the same size
+     */
+    static Scenario newScenario(int people, int tables, int courses) {
+        return ScenarioGenerator.generate(people, tables, courses, new Random(1));
+    }
+}
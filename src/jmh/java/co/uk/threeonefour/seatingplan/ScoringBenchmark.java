@@ -0,0 +1,95 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import co.uk.threeonefour.seatingplan.SeatingPlan.Change;
+import co.uk.threeonefour.seatingplan.SeatingPlan.ScoredSolution;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+
+/**
+ * The cost of creating and fully scoring a solution, and of one swap strategy iteration scored incrementally, for each
+ * solution model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScoringBenchmark {
+
+    @Param({ "array", "bitset", "compact", "triple" })
+    private String solutionModel;
+
+    @Param({ "25", "400" })
+    private int people;
+
+    /* tables are people / peoplePerTable, each with a host */
+    @Param({ "5" })
+    private int peoplePerTable;
+
+    @Param({ "4" })
+    private int courses;
+
+    private SeatingPlan seatingPlan;
+
+    private Scenario scenario;
+
+    private Solution solution;
+
+    private ScoredSolution scoredSolution;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        seatingPlan = BenchmarkScenarios.newSeatingPlan(courses, solutionModel, 0);
+        scenario = BenchmarkScenarios.newScenario(people, people / peoplePerTable, courses);
+        random = new Random(1);
+        solution = seatingPlan.createSolution(scenario, random);
+        scoredSolution = seatingPlan.new ScoredSolution(scenario, solution.copy());
+    }
+
+    @Benchmark
+    public Solution createSolution() {
+        return seatingPlan.createSolution(scenario, random);
+    }
+
+    @Benchmark
+    public double scoreSolution() {
+        return seatingPlan.scoreSolution(scenario, solution);
+    }
+
+    @Benchmark
+    public boolean isValidSolution() {
+        return seatingPlan.isValidSolution(scenario, solution);
+    }
+
+    /* a random change kept if it improves the score and undone if not */
+    @Benchmark
+    public double swapIteration() {
+        Change change = scoredSolution.randomChange(random);
+        if (!change.isSkipped()) {
+            if (!scoredSolution.isImprovement()) {
+                scoredSolution.undoChange();
+            } else {
+                scoredSolution.keepChange();
+            }
+        }
+        return scoredSolution.getScore();
+    }
+}
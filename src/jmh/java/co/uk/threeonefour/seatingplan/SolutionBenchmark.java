@@ -0,0 +1,190 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import co.uk.threeonefour.seatingplan.model.Course;
+import co.uk.threeonefour.seatingplan.model.Person;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+import co.uk.threeonefour.seatingplan.model.Table;
+
+/**
+ * The cost of each {@link Solution} query and change, for each solution model. Each call picks the next person, course
+ * and table from a fixed random sequence so the results don't depend on one lucky lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SolutionBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1024;
+
+    @Param({ "array", "bitset", "compact", "triple" })
+    private String solutionModel;
+
+    @Param({ "25", "400" })
+    private int people;
+
+    /* tables are people / peoplePerTable, each with a host */
+    @Param({ "5" })
+    private int peoplePerTable;
+
+    @Param({ "4" })
+    private int courses;
+
+    private Solution solution;
+
+    private Person[] personSequence;
+
+    private Person[] otherPersonSequence;
+
+    private Person[] nonHostSequence;
+
+    private Person[] otherNonHostSequence;
+
+    private Course[] courseSequence;
+
+    private Table[] tableSequence;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        SeatingPlan seatingPlan = BenchmarkScenarios.newSeatingPlan(courses, solutionModel, 0);
+        Scenario scenario = BenchmarkScenarios.newScenario(people, people / peoplePerTable, courses);
+        Random random = new Random(1);
+        solution = seatingPlan.createSolution(scenario, random);
+
+        List<Person> allPeople = IterableUtils.toList(scenario.findAllPeople());
+        List<Person> nonHosts = IterableUtils.toList(scenario.findAllPeopleByHost(false));
+        List<Course> allCourses = IterableUtils.toList(scenario.findAllCourses());
+        List<Table> allTables = IterableUtils.toList(scenario.findAllTables());
+
+        personSequence = new Person[SEQUENCE_LENGTH];
+        otherPersonSequence = new Person[SEQUENCE_LENGTH];
+        nonHostSequence = new Person[SEQUENCE_LENGTH];
+        otherNonHostSequence = new Person[SEQUENCE_LENGTH];
+        courseSequence = new Course[SEQUENCE_LENGTH];
+        tableSequence = new Table[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            personSequence[i] = allPeople.get(random.nextInt(allPeople.size()));
+            otherPersonSequence[i] = allPeople.get(random.nextInt(allPeople.size()));
+            nonHostSequence[i] = nonHosts.get(random.nextInt(nonHosts.size()));
+            otherNonHostSequence[i] = nonHosts.get(random.nextInt(nonHosts.size()));
+            courseSequence[i] = allCourses.get(random.nextInt(allCourses.size()));
+            tableSequence[i] = allTables.get(random.nextInt(allTables.size()));
+        }
+    }
+
+    private int next() {
+        next = (next + 1) & (SEQUENCE_LENGTH - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Optional<Table> findTableByPersonAndCourse() {
+        int i = next();
+        return solution.findTableByPersonAndCourse(personSequence[i], courseSequence[i]);
+    }
+
+    @Benchmark
+    public long countAllPeopleByHostAndCourseAndTable() {
+        int i = next();
+        return solution.countAllPeopleByHostAndCourseAndTable(true, courseSequence[i], tableSequence[i]);
+    }
+
+    @Benchmark
+    public long countAllDistinctTablesByPerson() {
+        return solution.countAllDistinctTablesByPerson(personSequence[next()]);
+    }
+
+    @Benchmark
+    public Iterable<Table> findAllDistinctTablesByPerson() {
+        return solution.findAllDistinctTablesByPerson(personSequence[next()]);
+    }
+
+    @Benchmark
+    public long countAllDistinctPeopleMetByPerson() {
+        return solution.countAllDistinctPeopleMetByPerson(personSequence[next()]);
+    }
+
+    @Benchmark
+    public Iterable<Person> findAllDistinctPeopleMetByPerson() {
+        return solution.findAllDistinctPeopleMetByPerson(personSequence[next()]);
+    }
+
+    @Benchmark
+    public long countAllCoursesTogetherByPeople() {
+        int i = next();
+        return solution.countAllCoursesTogetherByPeople(personSequence[i], otherPersonSequence[i]);
+    }
+
+    @Benchmark
+    public Iterable<Person> findAllPeopleByCourseAndTable() {
+        int i = next();
+        return solution.findAllPeopleByCourseAndTable(courseSequence[i], tableSequence[i]);
+    }
+
+    @Benchmark
+    public long countAllPeopleByCourseAndTable() {
+        int i = next();
+        return solution.countAllPeopleByCourseAndTable(courseSequence[i], tableSequence[i]);
+    }
+
+    @Benchmark
+    public Optional<Person> findPersonByTableAndHost() {
+        return solution.findPersonByTableAndHost(tableSequence[next()], true);
+    }
+
+    @Benchmark
+    public Solution swapPeopleOnCourse() {
+        int i = next();
+        solution.swapPeopleOnCourse(courseSequence[i], nonHostSequence[i], otherNonHostSequence[i]);
+        return solution;
+    }
+
+    /* moves there and back again so the tables stay the same size */
+    @Benchmark
+    public Solution movePersonOnCourseToTableAndBack() {
+        int i = next();
+        Person person = nonHostSequence[i];
+        Course course = courseSequence[i];
+        Table from = solution.findTableByPersonAndCourse(person, course).get();
+        solution.movePersonOnCourseToTable(person, course, tableSequence[i]);
+        solution.movePersonOnCourseToTable(person, course, from);
+        return solution;
+    }
+
+    @Benchmark
+    public Solution swapAndRollbackChanges() {
+        int i = next();
+        solution.beginChanges();
+        solution.swapPeopleOnCourse(courseSequence[i], nonHostSequence[i], otherNonHostSequence[i]);
+        solution.rollbackChanges();
+        return solution;
+    }
+
+    @Benchmark
+    public Solution copy() {
+        return solution.copy();
+    }
+}
@@ -0,0 +1,85 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+
+/**
+ * Strategy iterations per second. Each strategy is run for a fixed number of iterations from the same initial
+ * solution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StrategyBenchmark {
+
+    private static final int ITERATIONS = 1000;
+
+    @Param({ "random", "swap", "anneal", "tabu" })
+    private String strategy;
+
+    @Param({ "array", "bitset", "compact", "triple" })
+    private String solutionModel;
+
+    @Param({ "25", "400" })
+    private int people;
+
+    /* tables are people / peoplePerTable, each with a host */
+    @Param({ "5" })
+    private int peoplePerTable;
+
+    @Param({ "4" })
+    private int courses;
+
+    private SeatingPlan seatingPlan;
+
+    private Scenario scenario;
+
+    private Solution initialSolution;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        seatingPlan = BenchmarkScenarios.newSeatingPlan(courses, solutionModel, ITERATIONS);
+        scenario = BenchmarkScenarios.newScenario(people, people / peoplePerTable, courses);
+        random = new Random(1);
+        initialSolution = seatingPlan.createSolution(scenario, random);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Pair<Solution, Double> strategyIterations() {
+        switch (strategy) {
+        case "random":
+            return seatingPlan.bestRandomGuessStrategy(scenario, initialSolution, random);
+        case "swap":
+            return seatingPlan.swapAndRepeatStrategy(scenario, initialSolution, random);
+        case "anneal":
+            return seatingPlan.annealStrategy(scenario, initialSolution, random);
+        case "tabu":
+            return seatingPlan.tabuStrategy(scenario, initialSolution, random);
+        default:
+            throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+}
@@ -13,6 +13,15 @@ public class Application {
         // add std help sub command
         cl.addSubcommand(new HelpCommand());
 
+        // and one to generate people files for testing at scale
+        cl.addSubcommand(new ScenarioGenerator());
+
+        // and one to solve many seating plans at once
+        cl.addSubcommand(new BatchSolver());
+
+        // and one to stay running and solve seating plans as they are asked for
+        cl.addSubcommand(new PlannerServer());
+
         // be flexible with enum casting
         cl.setCaseInsensitiveEnumValuesAllowed(true);
 
@@ -0,0 +1,247 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.uk.threeonefour.seatingplan.model.Solution;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Solves many seating plans in one go, for a number of events or to try out settings, without starting a new JVM for
+ * each. Every combination of people file, number of courses and weightings is a job, solved as the seating plan would
+ * be with the same options, and the jobs are shared between threads on a work stealing pool. Each job's solutions are
+ * written to their own file and a summary of every job's best score is written once they are all done.
+ */
+@Command(name = "batch", description = "Solve a seating plan for each combination of people file, courses and weightings", version = "1.0")
+public class BatchSolver implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchSolver.class);
+
+    @Parameters(description = "People files to solve.", paramLabel = "<peoplefile>", arity = "1..*")
+    private List<Path> peopleFilePaths;
+
+    @Option(names = { "-c",
+            "--courses" }, description = "Numbers of courses to try, comma separated.", paramLabel = "<courses>", split = ",", defaultValue = "4")
+    private List<Integer> courses;
+
+    @Option(names = { "-dpw",
+            "--differentpeopleweighting" }, description = "Different people weightings to try, comma separated.", paramLabel = "<differentpeopleweighting>", split = ",", defaultValue = "0.4")
+    private List<Double> differentPeopleWeightings;
+
+    @Option(names = { "-dtw",
+            "--differenttablesweighting" }, description = "Different tables weightings to try, comma separated.", paramLabel = "<differenttablesweighting>", split = ",", defaultValue = "0.6")
+    private List<Double> differentTablesWeightings;
+
+    @Option(names = { "-jo",
+            "--joboptions" }, description = "Other seating plan options for every job, such as \"-s 1 -i 100000 -st swap\". Each job runs on one thread so -t is best left out.", paramLabel = "<joboptions>", defaultValue = "")
+    private String jobOptions;
+
+    @Option(names = { "-f",
+            "--format" }, description = "How to write each job's solutions. Options are text|csv|json", paramLabel = "<format>", defaultValue = "text")
+    private String format;
+
+    @Option(names = { "-od",
+            "--outputdirectory" }, description = "Directory to write each job's solutions and the summary to.", paramLabel = "<outputdirectory>", required = true)
+    private Path outputDirectoryPath;
+
+    @Option(names = { "-t",
+            "--threads" }, description = "Number of jobs to run at once. Defaults to the number of processors.", paramLabel = "<threads>", defaultValue = "0")
+    private int threads;
+
+    @Override
+    public void run() {
+
+        try {
+            Files.createDirectories(outputDirectoryPath);
+        } catch (IOException e) {
+            LOG.error("Failed to create output directory.", e);
+            return;
+        }
+
+        /* every job's options are checked before any are run */
+        List<Job> jobs;
+        try {
+            jobs = createJobs();
+        } catch (ParameterException e) {
+            LOG.error("Invalid job options: {}", e.getMessage());
+            return;
+        }
+
+        int poolThreads = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        LOG.info("Running {} jobs on {} threads", jobs.size(), poolThreads);
+
+        long startTime = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(poolThreads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Job job : jobs) {
+                tasks.add(pool.submit(job));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted waiting for jobs");
+            return;
+        } catch (ExecutionException e) {
+            /* a job catches its own failures so this is a bug */
+            throw new IllegalStateException("Batch job failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        LOG.info("Ran {} jobs in {} ms", jobs.size(), elapsedMillis);
+
+        Path summaryPath = outputDirectoryPath.resolve("summary.csv");
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(summaryPath, StandardCharsets.UTF_8))) {
+            writeSummaryCsv(pw, jobs);
+        } catch (IOException e) {
+            LOG.error("Failed to write summary.", e);
+        }
+
+        PrintWriter pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        writeSummaryText(pw, jobs);
+        pw.flush();
+        LOG.info("Written summary to {}", summaryPath);
+    }
+
+    /*
+     * A job for every combination, each with its own seating plan given the job options and its settings
+     */
+    private List<Job> createJobs() {
+        String[] options = StringUtils.isBlank(jobOptions) ? new String[0] : jobOptions.trim().split("\\s+");
+        List<Job> jobs = new ArrayList<>();
+        for (Path peopleFilePath : peopleFilePaths) {
+            String event = StringUtils.substringBeforeLast(peopleFilePath.getFileName().toString(), ".");
+            for (int numberOfCourses : courses) {
+                for (double differentPeopleWeighting : differentPeopleWeightings) {
+                    for (double differentTablesWeighting : differentTablesWeightings) {
+                        String name = String.format(Locale.ROOT, "%03d-%s-c%d-dpw%s-dtw%s", jobs.size() + 1, event,
+                                numberOfCourses, differentPeopleWeighting, differentTablesWeighting);
+                        Path outputPath = outputDirectoryPath
+                                .resolve(name + ("text".equals(format) ? ".txt" : "." + format));
+
+                        /* the job's settings come last so they win over the job options */
+                        List<String> args = new ArrayList<>(Arrays.asList(options));
+                        args.addAll(Arrays.asList("-pf", peopleFilePath.toString(), "-c",
+                                String.valueOf(numberOfCourses), "-dpw", String.valueOf(differentPeopleWeighting),
+                                "-dtw", String.valueOf(differentTablesWeighting), "-f", format, "-o",
+                                outputPath.toString()));
+                        SeatingPlan seatingPlan = new SeatingPlan();
+                        new CommandLine(seatingPlan).parseArgs(args.toArray(new String[0]));
+
+                        jobs.add(new Job(name, peopleFilePath, numberOfCourses, differentPeopleWeighting,
+                                differentTablesWeighting, seatingPlan, outputPath));
+                    }
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private static void writeSummaryCsv(PrintWriter pw, List<Job> jobs) {
+        pw.println("job,peopleFile,courses,differentPeopleWeighting,differentTablesWeighting,status,score,millis,output");
+        for (Job job : jobs) {
+            pw.println(String.join(",", job.name, csv(job.peopleFilePath.toString()),
+                    String.valueOf(job.numberOfCourses), String.valueOf(job.differentPeopleWeighting),
+                    String.valueOf(job.differentTablesWeighting), job.status,
+                    (job.score == null) ? "" : String.valueOf(job.score), String.valueOf(job.elapsedMillis),
+                    csv(job.outputPath.toString())));
+        }
+    }
+
+    private static void writeSummaryText(PrintWriter pw, List<Job> jobs) {
+        int width = "Job".length();
+        for (Job job : jobs) {
+            width = Math.max(width, job.name.length());
+        }
+        pw.println(String.format("%-" + width + "s  %-10s  %10s  %10s", "Job", "Status", "Score", "ms"));
+        for (Job job : jobs) {
+            pw.println(String.format(Locale.ROOT, "%-" + width + "s  %-10s  %10s  %10d", job.name, job.status,
+                    (job.score == null) ? "-" : String.format(Locale.ROOT, "%.6f", job.score), job.elapsedMillis));
+        }
+    }
+
+    /* quote a field if it could be mistaken for more than one */
+    private static String csv(String value) {
+        if (StringUtils.containsAny(value, ',', '"', '\n', '\r')) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /*
+     * One seating plan to solve and, once run, how it went. Only written by the thread running it and read once every
+     * job is done.
+     */
+    private static final class Job implements Runnable {
+
+        private final String name;
+        private final Path peopleFilePath;
+        private final int numberOfCourses;
+        private final double differentPeopleWeighting;
+        private final double differentTablesWeighting;
+        private final SeatingPlan seatingPlan;
+        private final Path outputPath;
+
+        private String status = "not run";
+        private Double score;
+        private long elapsedMillis;
+
+        Job(String name, Path peopleFilePath, int numberOfCourses, double differentPeopleWeighting,
+                double differentTablesWeighting, SeatingPlan seatingPlan, Path outputPath) {
+            this.name = name;
+            this.peopleFilePath = peopleFilePath;
+            this.numberOfCourses = numberOfCourses;
+            this.differentPeopleWeighting = differentPeopleWeighting;
+            this.differentTablesWeighting = differentTablesWeighting;
+            this.seatingPlan = seatingPlan;
+            this.outputPath = outputPath;
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.nanoTime();
+            try {
+                Pair<Solution, Double> best = seatingPlan.solve(null);
+                if (best == null) {
+                    status = "failed";
+                } else if (best.getLeft() == null) {
+                    status = "no solution";
+                } else {
+                    status = "solved";
+                    score = best.getRight();
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Job " + name + " failed.", e);
+                status = "failed";
+            }
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+
+import co.uk.threeonefour.seatingplan.model.Course;
+import co.uk.threeonefour.seatingplan.model.Person;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+import co.uk.threeonefour.seatingplan.model.Table;
+
+/**
+ * A strategy's progress saved to a file so a long search that is stopped can be carried on from where it got to. A
+ * checkpoint holds the strategy's solution and its score, how many iterations had been done and the state of the
+ * random numbers, so a resumed search makes the same changes it would have made had it not been stopped.
+ *
+ * The file is binary: a header, the strategy, the iterations and the score, the random numbers, then each seating as
+ * the ids of the person, course and table. It also holds the number of people, courses and tables and a fingerprint of
+ * the people so a checkpoint can't be loaded against a different people file. A new checkpoint is written alongside
+ * the old one and then moved over it so a search stopped while writing leaves the last checkpoint intact.
+ */
+public final class Checkpoint {
+
+    private static final int MAGIC = 0x53504350;
+
+    private static final int VERSION = 1;
+
+    private final String strategy;
+
+    private final int iterations;
+
+    private final double score;
+
+    private final Solution solution;
+
+    private final Random random;
+
+    private Checkpoint(String strategy, int iterations, double score, Solution solution, Random random) {
+        this.strategy = strategy;
+        this.iterations = iterations;
+        this.score = score;
+        this.solution = solution;
+        this.random = random;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return random numbers carrying on from where the strategy's random numbers were when the checkpoint was written
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Write a checkpoint, replacing any checkpoint already in the file.
+     *
+     * @param path
+     *            the file to write
+     * @param scenario
+     *            the scenario being solved
+     * @param strategy
+     *            the strategy writing the checkpoint
+     * @param iterations
+     *            how many iterations the strategy has done
+     * @param solution
+     *            the strategy's solution
+     * @param score
+     *            the solution's score
+     * @param random
+     *            the strategy's random numbers
+     * @throws IOException
+     *             if the file can't be written
+     */
+    public static void write(Path path, Scenario scenario, String strategy, int iterations, Solution solution,
+            double score, Random random) throws IOException {
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint(scenario));
+            out.writeUTF(strategy);
+            out.writeInt(iterations);
+            out.writeDouble(score);
+
+            byte[] randomState = serialise(random);
+            out.writeInt(randomState.length);
+            out.write(randomState);
+
+            List<Triple<Person, Course, Table>> seatings = IterableUtils.toList(solution.findAllSeatings());
+            out.writeInt(seatings.size());
+            for (Triple<Person, Course, Table> seating : seatings) {
+                out.writeInt(seating.getLeft().getId());
+                out.writeInt(seating.getMiddle().getId());
+                out.writeInt(seating.getRight().getId());
+            }
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            /* not every file system can rename atomically, the checkpoint could then be cut short by a crash */
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a checkpoint.
+     *
+     * @param path
+     *            the file to read
+     * @param scenario
+     *            the scenario being solved, which must be the one the checkpoint was written for
+     * @param emptySolution
+     *            an empty solution that the seatings are added to
+     * @return the checkpoint
+     * @throws IOException
+     *             if the file can't be read, isn't a checkpoint or is for a different scenario
+     */
+    public static Checkpoint read(Path path, Scenario scenario, Solution emptySolution) throws IOException {
+
+        Map<Integer, Person> peopleById = new HashMap<>();
+        scenario.findAllPeople().forEach(person -> peopleById.put(person.getId(), person));
+        Map<Integer, Course> coursesById = new HashMap<>();
+        scenario.findAllCourses().forEach(course -> coursesById.put(course.getId(), course));
+        Map<Integer, Table> tablesById = new HashMap<>();
+        scenario.findAllTables().forEach(table -> tablesById.put(table.getId(), table));
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a checkpoint");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " is a version " + version + " checkpoint, only version " + VERSION
+                        + " can be read");
+            }
+            if (in.readLong() != fingerprint(scenario)) {
+                throw new IOException(path + " was written for different people, courses or tables");
+            }
+            String strategy = in.readUTF();
+            int iterations = in.readInt();
+            double score = in.readDouble();
+
+            byte[] randomState = new byte[in.readInt()];
+            in.readFully(randomState);
+            Random random = deserialise(randomState);
+
+            int seatings = in.readInt();
+            for (int i = 0; i < seatings; i++) {
+                Person person = peopleById.get(in.readInt());
+                Course course = coursesById.get(in.readInt());
+                Table table = tablesById.get(in.readInt());
+                if (person == null || course == null || table == null) {
+                    throw new IOException(path + " has a seating for someone or something not in the scenario");
+                }
+                emptySolution.addSeating(person, course, table);
+            }
+
+            return new Checkpoint(strategy, iterations, score, emptySolution, random);
+        }
+    }
+
+    /*
+     * Changes if the people, who are hosts, the number of courses or tables, or who must or mustn't sit together change
+     */
+    private static long fingerprint(Scenario scenario) {
+        long fingerprint = 17;
+        for (Person person : scenario.findAllPeople()) {
+            fingerprint = 31 * fingerprint + person.getId();
+            fingerprint = 31 * fingerprint + person.getName().hashCode();
+            fingerprint = 31 * fingerprint + (person.isHost() ? 1 : 0);
+        }
+        fingerprint = 31 * fingerprint + scenario.countAllCourses();
+        fingerprint = 31 * fingerprint + scenario.countAllTables();
+        /* a plan without any pairs keeps the fingerprint it had before there could be any */
+        for (Pair<Person, Person> pair : scenario.findAllMustSitTogether()) {
+            fingerprint = 31 * fingerprint + pair.getLeft().getId();
+            fingerprint = 31 * fingerprint + pair.getRight().getId();
+        }
+        for (Pair<Person, Person> pair : scenario.findAllNeverSitTogether()) {
+            fingerprint = 31 * fingerprint - pair.getLeft().getId();
+            fingerprint = 31 * fingerprint - pair.getRight().getId();
+        }
+        return fingerprint;
+    }
+
+    /* random has no other way to get at its state */
+    private static byte[] serialise(Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        }
+        return bytes.toByteArray();
+    }
+
+    /* only random is allowed to be read back, so a doctored checkpoint can't create any other kind of object */
+    private static Random deserialise(byte[] randomState) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(randomState)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                if (!Random.class.getName().equals(desc.getName())) {
+                    throw new InvalidClassException(desc.getName(), "not allowed in a checkpoint");
+                }
+                return super.resolveClass(desc);
+            }
+        }) {
+            return (Random) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Checkpoint random numbers can't be read", e);
+        }
+    }
+}
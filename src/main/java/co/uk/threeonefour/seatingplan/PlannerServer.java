@@ -0,0 +1,259 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+
+/**
+ * Stays running and solves seating plans as they are asked for, so each plan only takes as long as solving it rather
+ * than also starting a JVM and running the strategies before they have been compiled.
+ *
+ * Requests are read a line at a time from the console, or from each connection to a port on the loopback address.
+ * Each line is an id followed by the seating plan options, for example {@code plan1 -pf people.txt -s 1 -i 20000}.
+ * Blank lines and lines starting with # are ignored. Each plan is solved on a fixed number of workers and answered,
+ * in the order they finish, with
+ *
+ * <pre>
+ * RESULT &lt;id&gt; &lt;solved|nosolution|failed&gt; &lt;score or -&gt; &lt;milliseconds&gt; &lt;lines&gt;
+ * </pre>
+ *
+ * followed by that many lines of the solutions written as the seating plan would write them, or with
+ * {@code ERROR <id> <message>} if the options can't be read. The time includes waiting for a worker.
+ *
+ * Only so many plans can be waiting for a worker. Once that many are waiting no more requests are read until one
+ * finishes, so a client sending plans faster than they can be solved is held back rather than queueing them without
+ * limit. Reaching the end of the console's input, or a connection being closed, stops reading requests but every
+ * request already read is still answered.
+ */
+@Command(name = "serve", description = "Stay running and solve seating plans sent one per line", version = "1.0")
+public class PlannerServer implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlannerServer.class);
+
+    @Option(names = { "-w",
+            "--workers" }, description = "Number of plans to solve at once. Defaults to the number of processors.", paramLabel = "<workers>", defaultValue = "0")
+    private int workers;
+
+    @Option(names = { "-q",
+            "--queue" }, description = "Number of plans that can wait for a worker before no more requests are read.", paramLabel = "<queue>", defaultValue = "16")
+    private int queueSize;
+
+    @Option(names = { "-p",
+            "--port" }, description = "Port on the loopback address to take requests on. 0 to read them from the console and answer on the console.", paramLabel = "<port>", defaultValue = "0")
+    private int port;
+
+    @Option(names = { "-wu",
+            "--warmup" }, description = "Iterations of the swap strategy to run on a generated plan before taking requests, so the first request doesn't wait for the strategy to be compiled. 0 for none.", paramLabel = "<warmup>", defaultValue = "0")
+    private int warmUpIterations;
+
+    private ExecutorService executor;
+
+    /* a permit for each plan being solved or waiting to be */
+    private Semaphore permits;
+
+    @Override
+    public void run() {
+
+        if (queueSize < 0) {
+            LOG.error("Queue size {} can't be negative", queueSize);
+            return;
+        }
+
+        int poolWorkers = (workers > 0) ? workers : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolWorkers, poolWorkers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        permits = new Semaphore(poolWorkers + queueSize);
+
+        try {
+            warmUp();
+            if (port == 0) {
+                LOG.info("Solving plans from the console on {} workers", poolWorkers);
+                serve(new BufferedReader(new InputStreamReader(System.in)),
+                        new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out))));
+            } else {
+                listen(poolWorkers);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to take requests.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted taking requests");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Run the swap strategy on a generated plan so it has been compiled before the first request
+     */
+    private void warmUp() {
+        if (warmUpIterations <= 0) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        SeatingPlan seatingPlan = new SeatingPlan();
+        new CommandLine(seatingPlan).parseArgs("-pf", "unused", "-i", String.valueOf(warmUpIterations));
+        Scenario scenario = ScenarioGenerator.generate(200, 40, 4, new Random(1));
+        seatingPlan.swapAndRepeatStrategy(scenario, null, new Random(1));
+        LOG.info("Warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /*
+     * Take connections on the loopback address until stopped, each read on its own thread
+     */
+    private void listen(int poolWorkers) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            LOG.info("Solving plans from port {} on {} workers", serverSocket.getLocalPort(), poolWorkers);
+            int connections = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> connect(socket), "connection-" + (++connections));
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    private void connect(Socket socket) {
+        LOG.debug("Connection from {}", socket.getRemoteSocketAddress());
+        try (Socket connection = socket;
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter writer = new PrintWriter(new BufferedWriter(
+                        new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)))) {
+            serve(reader, writer);
+        } catch (IOException e) {
+            LOG.error("Failed to take requests from " + socket.getRemoteSocketAddress() + ".", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOG.debug("Connection from {} closed", socket.getRemoteSocketAddress());
+    }
+
+    /*
+     * Read requests until there are no more and answer them, waiting for every request read to be answered
+     */
+    private void serve(BufferedReader reader, PrintWriter writer) throws IOException, InterruptedException {
+
+        List<Future<?>> pending = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+            String id = tokens[0];
+            SeatingPlan seatingPlan = new SeatingPlan();
+            try {
+                new CommandLine(seatingPlan).parseArgs(Arrays.copyOfRange(tokens, 1, tokens.length));
+            } catch (ParameterException e) {
+                respond(writer, "ERROR " + id + " " + e.getMessage(), null);
+                continue;
+            }
+
+            /* held here until there is room, which stops reading requests */
+            permits.acquire();
+            long queuedTime = System.nanoTime();
+            pending.removeIf(Future::isDone);
+            pending.add(executor.submit(() -> {
+                try {
+                    solve(id, seatingPlan, writer, queuedTime);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                LOG.error("Request failed.", e.getCause());
+            }
+        }
+    }
+
+    private void solve(String id, SeatingPlan seatingPlan, PrintWriter writer, long queuedTime) {
+
+        StringWriter solutions = new StringWriter();
+        String status;
+        Double score = null;
+        try {
+            Pair<Solution, Double> best = seatingPlan.solve(new PrintWriter(solutions));
+            if (best == null) {
+                status = "failed";
+            } else if (best.getLeft() == null) {
+                status = "nosolution";
+            } else {
+                status = "solved";
+                score = best.getRight();
+            }
+        } catch (ParameterException e) {
+            /* the options the seating plan only checks once it is solving, such as a missing people file */
+            respond(writer, "ERROR " + id + " " + e.getMessage(), null);
+            LOG.debug("Request {} has wrong options", id);
+            return;
+        } catch (RuntimeException e) {
+            LOG.error("Request " + id + " failed.", e);
+            status = "failed";
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedTime);
+        String[] lines = (solutions.getBuffer().length() == 0) ? new String[0]
+                : solutions.toString().split("\\r?\\n");
+        respond(writer, String.join(" ", "RESULT", id, status, (score == null) ? "-" : String.valueOf(score),
+                String.valueOf(elapsedMillis), String.valueOf(lines.length)), lines);
+        LOG.debug("Request {} {} in {} ms", id, status, elapsedMillis);
+    }
+
+    /*
+     * Answers are written whole, so those finishing together on different workers don't get mixed up
+     */
+    private static void respond(PrintWriter writer, String header, String[] lines) {
+        synchronized (writer) {
+            writer.println(header);
+            if (lines != null) {
+                for (String line : lines) {
+                    writer.println(line);
+                }
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                LOG.error("Failed to answer request, the client may have gone");
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.uk.threeonefour.seatingplan.model.Course;
+import co.uk.threeonefour.seatingplan.model.IndexedScenario;
+import co.uk.threeonefour.seatingplan.model.Person;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.SimpleScenario;
+import co.uk.threeonefour.seatingplan.model.Table;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Generates scenarios of any size for trying out the seating plan at scale. Can be run as the generate sub command to
+ * write a people file or used directly to build scenarios in code.
+ */
+@Command(name = "generate", description = "Generate a people file of any size", version = "1.0")
+public class ScenarioGenerator implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScenarioGenerator.class);
+
+    private static final String[] FIRST_NAMES = { "Alice", "Bob", "Charlie", "Dan", "Eve", "Faith", "Grace", "Heidi",
+            "Ivan", "Judy", "Kit", "Laura", "Mallory", "Niaj", "Olivia", "Peggy", "Quentin", "Rupert", "Sybil",
+            "Trent", "Uma", "Victor", "Walter", "Xena", "Yoko", "Zac" };
+
+    @Option(names = { "-n",
+            "--people" }, description = "Number of people, hosts included.", paramLabel = "<people>", defaultValue = "100")
+    private int numberOfPeople;
+
+    @Option(names = { "-hr",
+            "--hostratio" }, description = "Fraction of the people who are hosts. There is always at least one host.", paramLabel = "<hostratio>", defaultValue = "0.2")
+    private double hostRatio;
+
+    @Option(names = { "-s",
+            "--seed" }, description = "Seed for random number generation.", paramLabel = "<seed>", defaultValue = "0")
+    private long seed;
+
+    @Option(names = { "-o",
+            "--output" }, description = "People file to write. Written to the console if not given.", paramLabel = "<output>")
+    private Path outputPath;
+
+    @Override
+    public void run() {
+
+        Random random = (seed == 0) ? new Random() : new Random(seed);
+
+        /* courses aren't part of a people file */
+        Scenario scenario = generate(numberOfPeople, numberOfHosts(numberOfPeople, hostRatio), 0, random);
+
+        try {
+            if (outputPath == null) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                writePeople(scenario, writer);
+                writer.flush();
+            } else {
+                try (Writer writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+                    writePeople(scenario, writer);
+                }
+                LOG.info("Written {} people to {}", numberOfPeople, outputPath);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to write people.", e);
+        }
+    }
+
+    /**
+     * How many hosts there are for a number of people and fraction who are hosts, always at least one.
+     *
+     * @param numberOfPeople
+     *            the number of people, hosts included
+     * @param hostRatio
+     *            the fraction of people who are hosts
+     * @return the number of hosts
+     */
+    public static int numberOfHosts(int numberOfPeople, double hostRatio) {
+        return (int) Math.max(1, Math.min(numberOfPeople, Math.round(numberOfPeople * hostRatio)));
+    }
+
+    /**
+     * Generate a scenario with one table per host. The hosts are picked at random from the people.
+     *
+     * @param numberOfPeople
+     *            the number of people, hosts included
+     * @param numberOfHosts
+     *            how many of the people are hosts, and so how many tables there are
+     * @param numberOfCourses
+     *            the number of courses
+     * @param random
+     *            for repeatable random numbers
+     * @return the scenario, indexed
+     */
+    public static IndexedScenario generate(int numberOfPeople, int numberOfHosts, int numberOfCourses, Random random) {
+
+        if (numberOfHosts < 1 || numberOfHosts > numberOfPeople) {
+            throw new IllegalArgumentException(
+                    "Need between 1 and " + numberOfPeople + " hosts but asked for " + numberOfHosts);
+        }
+
+        SimpleScenario scenario = new SimpleScenario();
+
+        /* pick the hosts */
+        List<Boolean> hosts = new ArrayList<>(numberOfPeople);
+        for (int i = 0; i < numberOfPeople; i++) {
+            hosts.add(i < numberOfHosts);
+        }
+        Collections.shuffle(hosts, random);
+
+        /* ids are in the same order as reading the people back from a file */
+        for (int i = 0; i < numberOfPeople; i++) {
+            int id = i + 1;
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + id;
+            scenario.addPerson(new Person(id, name, hosts.get(i)));
+        }
+
+        for (int i = 0; i < numberOfCourses; i++) {
+            int id = i + 1;
+            scenario.addCourse(new Course(id, "Course " + id));
+        }
+
+        for (int i = 0; i < numberOfHosts; i++) {
+            int id = i + 1;
+            scenario.addTable(new Table(id, "Table " + id));
+        }
+
+        return new IndexedScenario(scenario);
+    }
+
+    /**
+     * Write the people in a scenario in the people file format, one person per line with ', host' after hosts.
+     *
+     * @param scenario
+     *            the scenario
+     * @param writer
+     *            where to write the people, left open
+     */
+    public static void writePeople(Scenario scenario, Writer writer) {
+        PrintWriter pw = new PrintWriter(writer);
+        for (Person person : scenario.findAllPeople()) {
+            pw.print(person.getName());
+            if (person.isHost()) {
+                pw.print(", host");
+            }
+            pw.println();
+        }
+        pw.flush();
+    }
+}
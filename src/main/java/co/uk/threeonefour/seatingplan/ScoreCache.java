@@ -0,0 +1,124 @@
+package co.uk.threeonefour.seatingplan;
+
+/**
+ * The score totals of solutions already seen, keyed on the solution's Zobrist hash, so a solution a strategy comes back
+ * to, by undoing a swap or moving someone back and forth between the same tables, is scored with a lookup rather than
+ * by counting the people met at the tables changed.
+ *
+ * The cache holds a fixed number of entries in arrays, with each hash having a single slot, so adding a solution
+ * replaces whatever solution was in its slot. Looking up and adding don't allocate. The hits, misses and evictions are
+ * counted so the cache can be sized: a low hit rate with many evictions wants a bigger cache, a low hit rate with few
+ * evictions means the strategy rarely comes back to the same solution.
+ *
+ * Two different solutions with the same 64 bit hash would share an entry, which is unlikely enough to be ignored,
+ * verifying scores will catch it if it happens. A cache is used by one strategy on one thread so isn't thread safe.
+ */
+public final class ScoreCache {
+
+    /* returned by find when the solution isn't in the cache */
+    public static final int NOT_FOUND = -1;
+
+    private final int mask;
+
+    private final long[] hashes;
+
+    private final boolean[] used;
+
+    private final long[] peopleMet;
+
+    private final long[] tablesSatAt;
+
+    private long lookups;
+
+    private long hits;
+
+    private long evictions;
+
+    /**
+     * @param capacity
+     *            the most solutions to hold, rounded up to a power of two
+     */
+    public ScoreCache(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Score cache capacity must be between 1 and " + (1 << 30));
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.hashes = new long[size];
+        this.used = new boolean[size];
+        this.peopleMet = new long[size];
+        this.tablesSatAt = new long[size];
+    }
+
+    /**
+     * Find a solution.
+     *
+     * @param hash
+     *            the solution's hash
+     * @return the slot holding the solution's totals or {@link #NOT_FOUND}
+     */
+    public int find(long hash) {
+        lookups++;
+        int slot = (int) hash & mask;
+        if (used[slot] && hashes[slot] == hash) {
+            hits++;
+            return slot;
+        }
+        return NOT_FOUND;
+    }
+
+    public long getPeopleMet(int slot) {
+        return peopleMet[slot];
+    }
+
+    public long getTablesSatAt(int slot) {
+        return tablesSatAt[slot];
+    }
+
+    /**
+     * Add a solution, replacing the solution in its slot if there is one.
+     *
+     * @param hash
+     *            the solution's hash
+     * @param peopleMet
+     *            the solution's total of different people met
+     * @param tablesSatAt
+     *            the solution's total of different tables sat at
+     */
+    public void put(long hash, long peopleMet, long tablesSatAt) {
+        int slot = (int) hash & mask;
+        if (used[slot] && hashes[slot] != hash) {
+            evictions++;
+        }
+        used[slot] = true;
+        hashes[slot] = hash;
+        this.peopleMet[slot] = peopleMet;
+        this.tablesSatAt[slot] = tablesSatAt;
+    }
+
+    public int getCapacity() {
+        return hashes.length;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the fraction of lookups that found the solution, 0 if there haven't been any
+     */
+    public double getHitRate() {
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+}
@@ -1,44 +1,82 @@
 package co.uk.threeonefour.seatingplan;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.IterableUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.uk.threeonefour.seatingplan.model.BitSetSolution;
+import co.uk.threeonefour.seatingplan.model.CompactSolution;
 import co.uk.threeonefour.seatingplan.model.Course;
+import co.uk.threeonefour.seatingplan.model.IndexedScenario;
+import co.uk.threeonefour.seatingplan.model.IntArraySolution;
 import co.uk.threeonefour.seatingplan.model.Person;
 import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.SeatingConstraints;
 import co.uk.threeonefour.seatingplan.model.SimpleScenario;
 import co.uk.threeonefour.seatingplan.model.Solution;
 import co.uk.threeonefour.seatingplan.model.Table;
 import co.uk.threeonefour.seatingplan.model.TripleListSolution;
+import co.uk.threeonefour.seatingplan.model.Zobrist;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
 
 @Command(name = "seatingplan", description = "Seating plan using simple in-memory list of triples model", version = "1.0")
 public class SeatingPlan implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(SeatingPlan.class);
 
+    /* iterations of the random strategy given to a thread at a time when run in parallel */
+    private static final int RANDOM_GUESS_CHUNK_SIZE = 1000;
+
+    /* roughly how often to read the clock when there is a time limit */
+    private static final long TIME_LIMIT_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /* most iterations between reading the clock, so a slow patch can't overrun the time limit by much */
+    private static final int MAX_ITERATIONS_BETWEEN_TIME_LIMIT_CHECKS = 1 << 16;
+
+    /* people file lines listing people who must sit together on every course, or must never sit together */
+    private static final String TOGETHER_PREFIX = "together:";
+    private static final String APART_PREFIX = "apart:";
+
+    /* swaps that don't mend anything tried for each non host, on each course, when mending the initial solution */
+    private static final int REPAIR_SIDEWAYS_SWAPS_PER_PERSON = 10;
+
+    /* solutions picked at random to compete to be a parent in the genetic strategy, the best of them wins */
+    private static final int GENETIC_TOURNAMENT_SIZE = 3;
+
     @Option(names = { "-c",
             "--courses" }, description = "Number of courses.", paramLabel = "<courses>", defaultValue = "4")
     private int numberOfCourses;
@@ -48,7 +86,7 @@ public class SeatingPlan implements Runnable {
     private long seed;
 
     @Option(names = { "-pf",
-            "--peoplefile" }, description = "File of people to include. One person per line. Use # to 'comment' someone out. Use ', host' to indicate they are a host.", paramLabel = "<peoplefile>", required = true)
+            "--peoplefile" }, description = "File of people to include. One person per line. Use # to 'comment' someone out. Use ', host' to indicate they are a host. Required unless running a sub command.", paramLabel = "<peoplefile>")
     private Path peopleFilePath;
 
     @Option(names = { "-i",
@@ -56,9 +94,17 @@ public class SeatingPlan implements Runnable {
     private int iterations;
 
     @Option(names = { "-st",
-            "--strategy" }, description = "Which strategies to use. Options are random|swap", paramLabel = "<strategies>", defaultValue = "swap")
+            "--strategy" }, description = "Which strategies to use. Options are random|swap|anneal|tabu|genetic", paramLabel = "<strategies>", defaultValue = "swap")
     private List<String> strategies;
 
+    @Option(names = { "-so",
+            "--solution" }, description = "Which solution model to use. Options are array|bitset|compact|triple. The bitset model holds who sits at each table as bits and counts the people met 64 at a time. The compact model takes the least memory, for very large events. The triple model is the simple reference implementation.", paramLabel = "<solution>", defaultValue = "array")
+    private String solutionModel;
+
+    @Option(names = { "-is",
+            "--initialsolution" }, description = "How to build the solution each strategy starts from. Options are random|greedy|rotation. Greedy seats each person where they meet the most new people and sit at a new table. Rotation moves people between tables in a fixed pattern so no two people meet twice, falling back to greedy if the numbers of people and tables don't allow it.", paramLabel = "<initialsolution>", defaultValue = "random")
+    private String initialSolutionBuilder;
+
     @Option(names = { "-dpw",
             "--differentpeopleweighting" }, description = "Weighting to be applied to the number of different people score. Weightings should ideally add up to 1.0.", paramLabel = "<differentpeopleweighting>", defaultValue = "0.4")
     private double differentPeopleWeighting;
@@ -67,8 +113,112 @@ public class SeatingPlan implements Runnable {
             "--differenttablesweighting" }, description = "Weighting to be applied to the number of different tables score. Weightings should ideally add up to 1.0.", paramLabel = "<differenttablesweighting>", defaultValue = "0.6")
     private double differentTablesWeighting;
 
+    @Option(names = { "-tl",
+            "--timelimit" }, description = "Stop each strategy after this many milliseconds, even if it hasn't done all its iterations. 0 for no limit.", paramLabel = "<timelimit>", defaultValue = "0")
+    private long timeLimit;
+
+    @Option(names = { "-sni",
+            "--stopafternoimprovement" }, description = "Stop each strategy after this many iterations without finding a better solution. 0 to always do all the iterations. The parallel random strategy applies this to each chunk of iterations.", paramLabel = "<stopafternoimprovement>", defaultValue = "0")
+    private int stopAfterNoImprovement;
+
+    @Option(names = { "-ast",
+            "--annealstarttemperature" }, description = "Starting temperature for the anneal strategy, more than 0. A change that lowers the score by this much is kept with a probability of 1/e at the start.", paramLabel = "<annealstarttemperature>", defaultValue = "0.01")
+    private double annealStartTemperature;
+
+    @Option(names = { "-acr",
+            "--annealcoolingrate" }, description = "The anneal strategy's temperature is multiplied by this, between 0 and 1, after every iteration.", paramLabel = "<annealcoolingrate>", defaultValue = "0.9995")
+    private double annealCoolingRate;
+
+    @Option(names = { "-arh",
+            "--annealreheat" }, description = "Reheat the anneal strategy back to the starting temperature after this many iterations without finding a better solution. 0 never reheats.", paramLabel = "<annealreheat>", defaultValue = "0")
+    private int annealReheat;
+
+    @Option(names = { "-tn",
+            "--tabuneighbourhood" }, description = "How many random swaps and moves the tabu strategy scores on each iteration before making the best one.", paramLabel = "<tabuneighbourhood>", defaultValue = "50")
+    private int tabuNeighbourhood;
+
+    @Option(names = { "-tt",
+            "--tabutenure" }, description = "How many iterations the tabu strategy stops a person going back to a table they were moved off for a course.", paramLabel = "<tabutenure>", defaultValue = "30")
+    private int tabuTenure;
+
+    @Option(names = { "-gp",
+            "--geneticpopulation" }, description = "How many solutions the genetic strategy keeps in each generation.", paramLabel = "<geneticpopulation>", defaultValue = "50")
+    private int geneticPopulation;
+
+    @Option(names = { "-ge",
+            "--geneticelite" }, description = "How many of the best solutions the genetic strategy carries into the next generation as they are.", paramLabel = "<geneticelite>", defaultValue = "2")
+    private int geneticElite;
+
+    @Option(names = { "-gm",
+            "--geneticmutations" }, description = "How many random swaps and moves the genetic strategy makes to each child.", paramLabel = "<geneticmutations>", defaultValue = "5")
+    private int geneticMutations;
+
+    @Option(names = { "-vs",
+            "--verifyscores" }, description = "Check every incrementally calculated score against a full scoring of the solution, and whether the hosts are where they should be against a count of the hosts at every table. This is slow and only intended for debugging.", paramLabel = "<verifyscores>", defaultValue = "false")
+    private boolean verifyScores;
+
+    @Option(names = { "-t",
+            "--threads" }, description = "Number of threads to use. The random strategy shares its iterations between them, the swap strategy runs an independent search on each, from its own random start, and the genetic strategy breeds and scores each generation across them. Everything is seeded from the main seed so results are repeatable.", paramLabel = "<threads>", defaultValue = "1")
+    private int threads;
+
+    @Option(names = { "-f",
+            "--format" }, description = "How to write the solutions. Options are text|csv|json", paramLabel = "<format>", defaultValue = "text")
+    private String format;
+
+    @Option(names = { "-o",
+            "--output" }, description = "File to write the solutions to. Written to the console if not given.", paramLabel = "<output>")
+    private Path outputPath;
+
+    @Option(names = { "-tf",
+            "--trajectoryfile" }, description = "File to write each strategy's progress to, as JSON if the name ends .json and CSV otherwise.", paramLabel = "<trajectoryfile>")
+    private Path trajectoryFilePath;
+
+    @Option(names = { "-tsi",
+            "--trajectorysampleinterval" }, description = "Record each strategy's progress every this many iterations. 0 to only record how each strategy finished.", paramLabel = "<trajectorysampleinterval>", defaultValue = "100")
+    private int trajectorySampleInterval;
+
+    @Option(names = { "-cf",
+            "--checkpointfile" }, description = "File to save the random or swap strategy's progress to so a long search can be resumed. Only one of the two can be run with it, and it is only written when running on one thread.", paramLabel = "<checkpointfile>")
+    private Path checkpointFilePath;
+
+    @Option(names = { "-ci",
+            "--checkpointinterval" }, description = "Save the strategy's progress every this many iterations. 0 to only save it when the strategy finishes.", paramLabel = "<checkpointinterval>", defaultValue = "100000")
+    private int checkpointInterval;
+
+    @Option(names = { "-r",
+            "--resume" }, description = "Checkpoint file to resume from. The strategy that wrote it carries on from the iteration it got to, the others start from its solution.", paramLabel = "<resume>")
+    private Path resumeFilePath;
+
+    @Option(names = { "-scs",
+            "--scorecachesize" }, description = "How many solutions the swap, anneal and tabu strategies remember the score of, so coming back to one is a lookup rather than rescoring it. The hit rate is logged when each strategy finishes. 0 for no cache.", paramLabel = "<scorecachesize>", defaultValue = "0")
+    private int scoreCacheSize;
+
+    @Spec
+    private CommandSpec spec;
+
+    private final List<StrategyListener> listeners = new CopyOnWriteArrayList<>();
+
     @Override
     public void run() {
+        solve(null);
+    }
+
+    /**
+     * Build the scenario, run each of the selected strategies on it and write the solutions found, as when run from
+     * the command line.
+     * 
+     * @param out
+     *            where to write the solutions, flushed but left open, or null to write them to the output file or the
+     *            console
+     * @return the best solution found by any of the strategies and its score, with a null solution if none found one,
+     *         or null if the options or files were wrong, which is logged
+     */
+    public Pair<Solution, Double> solve(PrintWriter out) {
+
+        /* only required here so sub commands can be run without one */
+        if (peopleFilePath == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required option '--peoplefile=<peoplefile>'");
+        }
 
         /* build the scenario */
         Scenario scenario;
@@ -76,20 +226,114 @@ public class SeatingPlan implements Runnable {
             scenario = createScenario();
         } catch (IOException e) {
             LOG.error("Failed to create scenario.", e);
-            return;
+            return null;
+        }
+
+        if (!"array".equals(solutionModel) && !"bitset".equals(solutionModel) && !"compact".equals(solutionModel)
+                && !"triple".equals(solutionModel)) {
+            LOG.error("Unknown solution model {}, options are array|bitset|compact|triple", solutionModel);
+            return null;
+        }
+
+        if ("array".equals(solutionModel) && scenario.countAllPeople() > IntArraySolution.MAX_PEOPLE) {
+            LOG.error("The array solution model holds at most {} people, not {}, use -so compact or -so bitset",
+                    IntArraySolution.MAX_PEOPLE, scenario.countAllPeople());
+            return null;
+        }
+
+        if (!"text".equals(format) && !"csv".equals(format) && !"json".equals(format)) {
+            LOG.error("Unknown format {}, options are text|csv|json", format);
+            return null;
+        }
+
+        if (!"random".equals(initialSolutionBuilder) && !"greedy".equals(initialSolutionBuilder)
+                && !"rotation".equals(initialSolutionBuilder)) {
+            LOG.error("Unknown initial solution {}, options are random|greedy|rotation", initialSolutionBuilder);
+            return null;
+        }
+
+        if (geneticPopulation < 2 || geneticElite < 0 || geneticElite >= geneticPopulation || geneticMutations < 0) {
+            LOG.error("Genetic population {} must be at least 2, elite {} fewer than the population and mutations {} not negative",
+                    geneticPopulation, geneticElite, geneticMutations);
+            return null;
+        }
+
+        /* written so a NaN fails too */
+        if (!(annealStartTemperature > 0) || !(annealCoolingRate > 0 && annealCoolingRate < 1)) {
+            LOG.error("Anneal start temperature {} must be more than 0 and cooling rate {} between 0 and 1",
+                    annealStartTemperature, annealCoolingRate);
+            return null;
+        }
+
+        if (scoreCacheSize < 0 || scoreCacheSize > (1 << 30)) {
+            LOG.error("Score cache size {} must be between 0 and {}", scoreCacheSize, 1 << 30);
+            return null;
         }
 
         /* random but repeatable */
         Random random = (seed == 0) ? new Random() : new Random(seed);
 
+        if (checkpointFilePath != null && threads > 1) {
+            LOG.warn("Checkpoints are only written when running on one thread");
+        }
+
+        /* each would overwrite the other's checkpoint and a resume would carry on the wrong one */
+        if (checkpointFilePath != null && strategies.contains("random") && strategies.contains("swap")) {
+            LOG.error("Only one of the random and swap strategies can be checkpointed at a time, run them separately");
+            return null;
+        }
+
+        /* a resumed search carries on from the checkpoint's solution, its own strategy with its random numbers */
+        Checkpoint checkpoint = null;
+        Solution initialSolution = null;
+        if (resumeFilePath != null) {
+            try {
+                checkpoint = Checkpoint.read(resumeFilePath, scenario, newSolution(scenario));
+            } catch (IOException e) {
+                LOG.error("Failed to read checkpoint.", e);
+                return null;
+            }
+            initialSolution = checkpoint.getSolution();
+            LOG.info("Resuming {} strategy from iteration {} with a score of {}", checkpoint.getStrategy(),
+                    checkpoint.getIterations(), checkpoint.getScore());
+            if (threads > 1) {
+                LOG.warn("Running on {} threads the {} strategy starts again from the checkpoint's solution rather than carrying on from iteration {}",
+                        threads, checkpoint.getStrategy(), checkpoint.getIterations());
+            }
+        }
+
+        /* each strategy's solution is written as soon as it is found, the console is flushed but left open */
+        PrintWriter pw;
+        try {
+            pw = (out != null) ? out
+                    : (outputPath == null) ? new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)))
+                            : new PrintWriter(Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.error("Failed to open output.", e);
+            return null;
+        }
+
+        /* registered once the output is open so there's no early return to leave it behind */
+        TrajectoryExporter trajectoryExporter = null;
+        if (trajectoryFilePath != null) {
+            trajectoryExporter = new TrajectoryExporter();
+            addStrategyListener(trajectoryExporter);
+        }
+
         Pair<Solution, Double> solutionScore;
+        List<Pair<Solution, Double>> solutionScores = new ArrayList<>();
 
         /* Solution strategy #1 */
         if (strategies.contains("random")) {
-            solutionScore = bestRandomGuessStrategy(scenario, null, random);
+            Random randomRandom = resumedRandom(checkpoint, "random", random);
+            solutionScore = (threads > 1) ? parallelBestRandomGuessStrategy(scenario, initialSolution, randomRandom)
+                    : bestRandomGuessStrategy(scenario, initialSolution, randomRandom,
+                            new Termination(iterations, deadline()), newProgress("random"),
+                            resumedIterations(checkpoint, "random"), checkpointFilePath);
+            solutionScores.add(solutionScore);
             /* print the solution found */
             if (solutionScore.getLeft() != null) {
-                printModel(scenario, solutionScore.getLeft(), solutionScore.getRight());
+                printModel(pw, scenario, solutionScore.getLeft(), solutionScore.getRight());
             } else {
                 LOG.error("No valid solution found");
             }
@@ -97,14 +341,153 @@ public class SeatingPlan implements Runnable {
 
         /* Solution strategy #2 */
         if (strategies.contains("swap")) {
-            solutionScore = swapAndRepeatStrategy(scenario, null, random);
+            Random swapRandom = resumedRandom(checkpoint, "swap", random);
+            solutionScore = (threads > 1) ? parallelSwapAndRepeatStrategy(scenario, initialSolution, swapRandom)
+                    : swapAndRepeatStrategy(scenario, initialSolution, swapRandom, newProgress("swap"),
+                            resumedIterations(checkpoint, "swap"), checkpointFilePath);
+            solutionScores.add(solutionScore);
+            /* print the solution found */
+            if (solutionScore.getLeft() != null) {
+                printModel(pw, scenario, solutionScore.getLeft(), solutionScore.getRight());
+            } else {
+                LOG.error("No valid solution found");
+            }
+        }
+
+        /* Solution strategy #3 */
+        if (strategies.contains("anneal")) {
+            solutionScore = annealStrategy(scenario, initialSolution, random);
+            solutionScores.add(solutionScore);
+            /* print the solution found */
+            if (solutionScore.getLeft() != null) {
+                printModel(pw, scenario, solutionScore.getLeft(), solutionScore.getRight());
+            } else {
+                LOG.error("No valid solution found");
+            }
+        }
+
+        /* Solution strategy #4 */
+        if (strategies.contains("tabu")) {
+            solutionScore = tabuStrategy(scenario, initialSolution, random);
+            solutionScores.add(solutionScore);
             /* print the solution found */
             if (solutionScore.getLeft() != null) {
-                printModel(scenario, solutionScore.getLeft(), solutionScore.getRight());
+                printModel(pw, scenario, solutionScore.getLeft(), solutionScore.getRight());
             } else {
                 LOG.error("No valid solution found");
             }
         }
+
+        /* Solution strategy #5 */
+        if (strategies.contains("genetic")) {
+            solutionScore = geneticStrategy(scenario, initialSolution, random);
+            solutionScores.add(solutionScore);
+            /* print the solution found */
+            if (solutionScore.getLeft() != null) {
+                printModel(pw, scenario, solutionScore.getLeft(), solutionScore.getRight());
+            } else {
+                LOG.error("No valid solution found");
+            }
+        }
+
+        if (out == null && outputPath != null) {
+            pw.close();
+            LOG.info("Written solutions to {}", outputPath);
+        }
+
+        if (trajectoryExporter != null) {
+            try {
+                trajectoryExporter.write(trajectoryFilePath);
+                LOG.info("Written {} progress samples to {}", trajectoryExporter.countAllSamples(),
+                        trajectoryFilePath);
+            } catch (IOException e) {
+                LOG.error("Failed to write progress samples.", e);
+            } finally {
+                /* it only samples this run, don't leave it listening when solve is called again */
+                listeners.remove(trajectoryExporter);
+            }
+        }
+
+        Pair<Solution, Double> best = bestOf(solutionScores);
+        logMemoryFootprint(scenario, best);
+        return best;
+    }
+
+    /*
+     * How much memory a solution takes with the selected model, as each strategy keeps several copies, one for each
+     * thread or member of the population as well as the best so far
+     */
+    private void logMemoryFootprint(Scenario scenario, Pair<Solution, Double> best) {
+        if (best == null || best.getLeft() == null) {
+            return;
+        }
+        long bytes = best.getLeft().estimateMemoryBytes();
+        long seatings = scenario.countAllPeople() * scenario.countAllCourses();
+        LOG.info("Each {} solution takes about {} KB, {} bytes per seating", solutionModel, (bytes + 1023) / 1024,
+                String.format("%.1f", (seatings == 0) ? 0.0 : (double) bytes / seatings));
+    }
+
+    /**
+     * Add a listener to be told how each strategy is getting on.
+     *
+     * @param listener
+     *            the listener, called from the strategy's thread
+     */
+    public void addStrategyListener(StrategyListener listener) {
+        listeners.add(listener);
+    }
+
+    /*
+     * How many iterations the strategy has already done if it is the one the checkpoint was written by
+     */
+    private static int resumedIterations(Checkpoint checkpoint, String strategy) {
+        return (checkpoint != null && strategy.equals(checkpoint.getStrategy())) ? checkpoint.getIterations() : 0;
+    }
+
+    /*
+     * The checkpoint's random numbers if the strategy is the one the checkpoint was written by, so another strategy
+     * run before it can't use them up, otherwise the run's own
+     */
+    private static Random resumedRandom(Checkpoint checkpoint, String strategy, Random random) {
+        return (checkpoint != null && strategy.equals(checkpoint.getStrategy())) ? checkpoint.getRandom() : random;
+    }
+
+    /*
+     * Save a strategy's progress, a failure is logged rather than stopping the search
+     */
+    private void writeCheckpoint(Path checkpointPath, Scenario scenario, String strategy, int iterationsDone,
+            Solution solution, double score, Random random) {
+        try {
+            Checkpoint.write(checkpointPath, scenario, strategy, iterationsDone, solution, score, random);
+            LOG.debug("Written {} checkpoint at iteration {} to {}", strategy, iterationsDone, checkpointPath);
+        } catch (IOException e) {
+            LOG.error("Failed to write checkpoint.", e);
+        }
+    }
+
+    /*
+     * A score cache for a strategy that is just starting, null if there isn't to be one
+     */
+    protected ScoreCache newScoreCache() {
+        return (scoreCacheSize > 0) ? new ScoreCache(scoreCacheSize) : null;
+    }
+
+    /*
+     * How well a strategy's score cache did, to help size it
+     */
+    private void logScoreCache(StrategyProgress progress, ScoreCache cache) {
+        if (cache != null) {
+            LOG.info("{} score cache of {} found {} of {} solutions ({}%) with {} evicted", progress.getStrategy(),
+                    cache.getCapacity(), cache.getHits(), cache.getLookups(),
+                    String.format("%.1f", 100 * cache.getHitRate()), cache.getEvictions());
+        }
+    }
+
+    /*
+     * Progress for a strategy that is just starting
+     */
+    protected StrategyProgress newProgress(String strategy) {
+        return new StrategyProgress(strategy, listeners, trajectorySampleInterval);
     }
 
     protected final Scenario createScenario() throws IOException {
@@ -118,11 +501,18 @@ public class SeatingPlan implements Runnable {
         }
 
         int numberOfHosts = 0;
+        List<String> togetherLines = new ArrayList<>();
+        List<String> apartLines = new ArrayList<>();
         try (Scanner scanner = new Scanner(peopleFilePath)) {
             int i = 0;
             while (scanner.hasNextLine()) {
                 String line = scanner.nextLine().trim();
-                if (!line.startsWith("#")) {
+                /* constraints can name people further down the file so are added once everyone is read */
+                if (StringUtils.startsWithIgnoreCase(line, TOGETHER_PREFIX)) {
+                    togetherLines.add(line.substring(TOGETHER_PREFIX.length()));
+                } else if (StringUtils.startsWithIgnoreCase(line, APART_PREFIX)) {
+                    apartLines.add(line.substring(APART_PREFIX.length()));
+                } else if (!line.startsWith("#")) {
                     int id = (i + 1);
                     String name = StringUtils.substringBeforeLast(line, ",").trim();
                     boolean host = "host".equalsIgnoreCase(StringUtils.substringAfterLast(line, ",").trim());
@@ -135,6 +525,27 @@ public class SeatingPlan implements Runnable {
             }
         }
 
+        for (String line : togetherLines) {
+            List<Person> group = findPeopleByName(scenario, line);
+            for (int i = 0; i < group.size(); i++) {
+                for (int j = i + 1; j < group.size(); j++) {
+                    if (group.get(i).isHost() && group.get(j).isHost()) {
+                        throw new IOException("Hosts " + group.get(i).getName() + " and " + group.get(j).getName()
+                                + " can't sit together as they each have their own table");
+                    }
+                    scenario.addMustSitTogether(group.get(i), group.get(j));
+                }
+            }
+        }
+        for (String line : apartLines) {
+            List<Person> group = findPeopleByName(scenario, line);
+            for (int i = 0; i < group.size(); i++) {
+                for (int j = i + 1; j < group.size(); j++) {
+                    scenario.addNeverSitTogether(group.get(i), group.get(j));
+                }
+            }
+        }
+
         /* create a list of Courses */
         for (int i = 0; i < numberOfCourses; i++) {
             int id = i + 1;
@@ -147,115 +558,46 @@ public class SeatingPlan implements Runnable {
             scenario.addTable(new Table(id, "Table " + id));
         }
 
-        return scenario;
+        /* indexed once so finding people and counting is cheap however often the strategies do it */
+        return new IndexedScenario(scenario);
     }
 
-    protected void printModel(Scenario scenario, Solution solution, double score) {
-
-        try (PrintWriter pw = new PrintWriter(System.out)) {
-
-            pw.println();
-            pw.println(String.format("Solution score %f", score));
-
-            /* first the header rows */
-            int firstColWidth = 20;
-            int otherColWidth = 12;
-            pw.println("");
-            for (int hdrRow = 0; hdrRow < 2; hdrRow++) {
-
-                pw.print("| ");
-                if (hdrRow == 0) {
-                    pw.print(truncateAndPad("Name", firstColWidth));
-                } else {
-                    pw.print(StringUtils.repeat('-', firstColWidth));
-                }
-                pw.print(" | ");
-
-                for (Iterator<Course> it = scenario.findAllCourses().iterator(); it.hasNext();) {
-                    Course course = it.next();
-                    if (hdrRow == 0) {
-                        pw.print(truncateAndPad(course.getName(), otherColWidth));
-                    } else {
-                        pw.print(StringUtils.repeat('-', otherColWidth));
-                    }
-                    if (it.hasNext()) {
-                        pw.print(" | ");
+    /*
+     * The people named in a comma separated list, each of whom must be in the scenario once
+     */
+    private List<Person> findPeopleByName(Scenario scenario, String names) throws IOException {
+        List<Person> group = new ArrayList<>();
+        for (String name : names.split(",")) {
+            name = name.trim();
+            Person found = null;
+            for (Person person : scenario.findAllPeople()) {
+                if (person.getName().equalsIgnoreCase(name)) {
+                    if (found != null) {
+                        throw new IOException("More than one person is called " + name + " in " + peopleFilePath);
                     }
+                    found = person;
                 }
-
-                pw.print(" | ");
-                if (hdrRow == 0) {
-                    pw.print(truncateAndPad("# People", otherColWidth));
-                } else {
-                    pw.print(StringUtils.repeat('-', otherColWidth));
-                }
-
-                pw.print(" | ");
-                if (hdrRow == 0) {
-                    pw.print(truncateAndPad("# Tables", otherColWidth));
-                } else {
-                    pw.print(StringUtils.repeat('-', otherColWidth));
-                }
-
-                pw.println(" |");
             }
-
-            /* then the rows */
-            for (Iterator<Person> pit = scenario.findAllPeople().iterator(); pit.hasNext();) {
-                Person person = pit.next();
-                pw.print("| ");
-                if (person.isHost()) {
-                    pw.print("**");
-                    pw.print("(h) ");
-                    pw.print(truncateAndPad(person.getName(), firstColWidth - 8));
-                    pw.print("**");
-                } else {
-                    pw.print(truncateAndPad(person.getName(), firstColWidth));
-                }
-                pw.print(" | ");
-                for (Iterator<Course> cit = scenario.findAllCourses().iterator(); cit.hasNext();) {
-                    Course course = cit.next();
-                    // lpw.print(" ");
-                    Optional<Table> table = solution.findTableByPersonAndCourse(person, course);
-                    if (table.isPresent()) {
-                        Optional<Person> host = solution.findPersonByTableAndHost(table.get(), true);
-                        if (host.isPresent()) {
-                            pw.print(truncateAndPad(host.get().getName(), otherColWidth));
-                        } else {
-                            pw.print(truncateAndPad(table.get().getName(), otherColWidth));
-                        }
-                    } else {
-                        pw.print(StringUtils.repeat('-', otherColWidth));
-                    }
-                    pw.print(" | ");
-                }
-                long peopleMet = solution.countAllDistinctPeopleMetByPerson(person);
-                pw.print(truncateAndPad(String.valueOf(peopleMet), otherColWidth));
-                pw.print(" | ");
-                long tablesSatOn = solution.countAllDistinctTablesByPerson(person);
-                pw.print(truncateAndPad(String.valueOf(tablesSatOn), otherColWidth));
-                pw.print(" |");
-                pw.println();
+            if (found == null) {
+                throw new IOException("No one is called " + name + " in " + peopleFilePath);
             }
-
-            /* and the footer */
-            pw.println();
-
-            /* and print all hosts and people they sit with */
-            for (Person host : scenario.findAllPeopleByHost(true)) {
-                pw.print("* ");
-                pw.println(host.getName());
-                for (Person person : solution.findAllDistinctPeopleMetByPerson(host)) {
-                    pw.print("  * ");
-                    pw.println(person.getName());
-                }
+            if (group.contains(found)) {
+                throw new IOException(name + " is named more than once in \"" + names.trim() + "\"");
             }
-            pw.println();
+            group.add(found);
         }
+        if (group.size() < 2) {
+            throw new IOException("\"" + names.trim() + "\" needs at least two people");
+        }
+        return group;
     }
 
-    private static final String truncateAndPad(String str, int width) {
-        return StringUtils.rightPad(StringUtils.truncate(str, width), width);
+    protected void printModel(PrintWriter pw, Scenario scenario, Solution solution, double score) {
+        new SolutionReport(scenario, solution, score).write(pw, format);
+        pw.flush();
+        if (pw.checkError()) {
+            LOG.error("Failed to write solution.");
+        }
     }
 
     /*
@@ -269,19 +611,21 @@ public class SeatingPlan implements Runnable {
 
         long startTime = System.nanoTime();
 
-        Solution solution = new TripleListSolution();
+        Solution solution = newSolution(scenario);
 
-        List<Table> tables = new ArrayList<>(IterableUtils.toList(scenario.findAllTables()));
+        List<Table> tables = IterableUtils.toList(scenario.findAllTables());
+        Iterable<Person> hosts = scenario.findAllPeopleByHost(true);
+        List<Person> nonHosts = IterableUtils.toList(scenario.findAllPeopleByHost(false));
         for (Course course : scenario.findAllCourses()) {
 
             /* add a host to each table */
             int tableNumber = 0;
-            for (Person host : scenario.findAllPeopleByHost(true)) {
+            for (Person host : hosts) {
                 solution.addSeating(host, course, tables.get(tableNumber++));
             }
 
             /* shuffle the remaining people */
-            List<Person> shuffledNonHosts = new ArrayList<>(IterableUtils.toList(scenario.findAllPeopleByHost(false)));
+            List<Person> shuffledNonHosts = new ArrayList<>(nonHosts);
             Collections.shuffle(shuffledNonHosts, random);
 
             /* and then add them to the tables one at a time */
@@ -296,126 +640,906 @@ public class SeatingPlan implements Runnable {
             }
         }
 
+        repairConstraints(scenario, solution, random);
+
         long endTime = System.nanoTime();
         LOG.trace("Solution generated in {} us", TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
 
         return solution;
     }
 
-    protected double scoreSolution(Scenario scenario, Solution solution) {
+    /*
+     * The solution a strategy starts from, built the selected way.
+     */
+    protected Solution createInitialSolution(Scenario scenario, Random random) {
+        switch (initialSolutionBuilder) {
+        case "greedy":
+            return createGreedySolution(scenario, random);
+        case "rotation":
+            return createRotationSolution(scenario, random);
+        default:
+            return createSolution(scenario, random);
+        }
+    }
+
+    /*
+     * Greedy filling of tables, one course at a time.
+     * 
+     * 1. put one host on each table, as for the random filling
+     * 
+     * 2. take the non hosts in a random order and seat each at the table with a space where they gain the most score,
+     * from the people there they haven't sat with before and from not having sat at the table before
+     * 
+     * The tables are filled to the same sizes as the random filling so only where people sit differs.
+     */
+    protected Solution createGreedySolution(Scenario scenario, Random random) {
 
         long startTime = System.nanoTime();
 
-        boolean valid = true;
+        Solution solution = newSolution(scenario);
+        ScoreWeightings weightings = new ScoreWeightings(scenario);
 
-        /* make sure one and only one host per table for each course */
-        for (Table tables : scenario.findAllTables()) {
-            for (Course courses : scenario.findAllCourses()) {
-                long hosts = solution.countAllPeopleByHostAndCourseAndTable(true, courses, tables);
-                if (hosts != 1) {
-                    valid = false;
-                    break;
-                }
-            }
-        }
+        List<Table> tables = new ArrayList<>(IterableUtils.toList(scenario.findAllTables()));
+        List<Person> hosts = IterableUtils.toList(scenario.findAllPeopleByHost(true));
+        List<Person> nonHosts = new ArrayList<>(IterableUtils.toList(scenario.findAllPeopleByHost(false)));
+        List<Course> coursesSoFar = new ArrayList<>();
 
-        /* make sure host only sits on one table */
-        for (Person host : scenario.findAllPeopleByHost(true)) {
-            long numTables = solution.countAllDistinctTablesByPerson(host);
-            if (numTables != 1) {
-                valid = false;
-                break;
+        for (Course course : scenario.findAllCourses()) {
+
+            /* add a host to each table */
+            for (int tableNumber = 0; tableNumber < hosts.size(); tableNumber++) {
+                solution.addSeating(hosts.get(tableNumber), course, tables.get(tableNumber));
             }
-        }
 
-        long numberOfTables = scenario.countAllTables();
-        long numberOfPeople = scenario.countAllPeople();
-        long maxPeoplePerTable = (int) Math.ceil((double) numberOfPeople / numberOfTables);
-        long mostPeopleAPersonCanMeet = numberOfCourses * (maxPeoplePerTable - 1);
-        long mostNumberOfDifferentTablesAPersonCanSitAt = Math.min(numberOfTables, numberOfCourses);
+            /* each table takes its share of the non hosts, the first few tables one more if they don't divide */
+            int[] spaces = new int[tables.size()];
+            for (int tableNumber = 0; tableNumber < tables.size(); tableNumber++) {
+                spaces[tableNumber] = nonHosts.size() / tables.size()
+                        + ((tableNumber < nonHosts.size() % tables.size()) ? 1 : 0);
+            }
 
-        /* how many different people does each person get to sit with */
-        Map<Person, Double> personToDifferentPeopleScore = new HashMap<>();
-        for (Person person : scenario.findAllPeople()) {
-            long peopleMet = solution.countAllDistinctPeopleMetByPerson(person);
-            double score = peopleMet / (double) mostPeopleAPersonCanMeet;
-            personToDifferentPeopleScore.put(person, score);
-        }
+            Collections.shuffle(nonHosts, random);
+            for (Person person : nonHosts) {
+
+                /*
+                 * the first table with the biggest gain, which is also the emptiest on a tie, starting from the first
+                 * table with space as negative weightings can make every gain negative
+                 */
+                int bestTableNumber = -1;
+                double bestGain = Double.NEGATIVE_INFINITY;
+                for (int tableNumber = 0; tableNumber < tables.size(); tableNumber++) {
+                    if (spaces[tableNumber] == 0) {
+                        continue;
+                    }
+                    Table table = tables.get(tableNumber);
+                    long newPeople = 0;
+                    for (Person seated : solution.findAllPeopleByCourseAndTable(course, table)) {
+                        if (solution.countAllCoursesTogetherByPeople(person, seated) == 0) {
+                            newPeople++;
+                        }
+                    }
+                    boolean newTable = true;
+                    for (Course previous : coursesSoFar) {
+                        if (table.equals(solution.findTableByPersonAndCourse(person, previous).orElse(null))) {
+                            newTable = false;
+                            break;
+                        }
+                    }
+                    /* meeting someone new counts for both of them */
+                    double gain = weightings.score(true, 2 * newPeople, newTable ? 1 : 0);
+                    if (bestTableNumber < 0 || gain > bestGain
+                            || (gain == bestGain && spaces[tableNumber] > spaces[bestTableNumber])) {
+                        bestGain = gain;
+                        bestTableNumber = tableNumber;
+                    }
+                }
+                solution.addSeating(person, course, tables.get(bestTableNumber));
+                spaces[bestTableNumber]--;
+            }
 
-        /* how many different tables does each person get to sit on */
-        Map<Person, Double> personToDifferentTableScore = new HashMap<>();
-        for (Person person : scenario.findAllPeopleByHost(false)) {
-            long numTables = solution.countAllDistinctTablesByPerson(person);
-            double score = numTables / (double) mostNumberOfDifferentTablesAPersonCanSitAt;
-            personToDifferentTableScore.put(person, score);
+            coursesSoFar.add(course);
         }
 
-        double avgPersonToDifferentPeopleScore = personToDifferentPeopleScore.values().stream()
-                .collect(Collectors.averagingDouble(v -> v));
-        double avgPersonToDifferentTableScore = personToDifferentTableScore.values().stream()
-                .collect(Collectors.averagingDouble(v -> v));
-        /* combine scores with weightings */
-        double solutionScore = valid
-                ? avgPersonToDifferentPeopleScore * differentPeopleWeighting
-                        + avgPersonToDifferentTableScore * differentTablesWeighting
-                : 0.0;
+        repairConstraints(scenario, solution, random);
 
         long endTime = System.nanoTime();
+        LOG.debug("Greedy solution generated in {} us", TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
 
-        LOG.trace("Solution scored in {} us", TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
-
-        return solutionScore;
+        return solution;
     }
 
-    /**
-     * Repeatedly generate random solutions, score them and keep the best one
+    /*
+     * Filling of tables to a rotation schedule, the same idea as a round robin tournament.
      * 
-     * @param scenario
-     *            the scenario to solve
-     * @param initialSolution
-     *            an initial solution to start with
-     * @param random
-     *            for repeatable random numbers
-     * @return the best solution found or null if no valid solution found
+     * 1. put one host on each table for every course, as for the random filling
+     * 
+     * 2. lay the non hosts, in a random order, out in rows of one per table
+     * 
+     * 3. for each course move everyone in row r on by (r + 1) x course tables, wrapping round
+     * 
+     * Two people in rows r and s and columns j and k sit together on course c when (r - s) x c = k - j, modulo the
+     * number of tables. When every row multiplier and difference between rows has no factor in common with the number
+     * of tables that happens on at most one of any run of courses as long as the number of tables, and everyone moves
+     * to a different table on each of those courses. That is true when there are fewer rows than the smallest prime
+     * factor of the number of tables, otherwise this falls back to the greedy filling.
      */
-    public Pair<Solution, Double> bestRandomGuessStrategy(Scenario scenario, Solution initialSolution, Random random) {
+    protected Solution createRotationSolution(Scenario scenario, Random random) {
 
-        LOG.debug("Starting bestRandomGuessStrategy");
+        List<Table> tables = new ArrayList<>(IterableUtils.toList(scenario.findAllTables()));
+        List<Person> hosts = IterableUtils.toList(scenario.findAllPeopleByHost(true));
+        List<Person> nonHosts = new ArrayList<>(IterableUtils.toList(scenario.findAllPeopleByHost(false)));
+
+        int numberOfTables = tables.size();
+        int rows = (numberOfTables == 0) ? 0 : (nonHosts.size() + numberOfTables - 1) / numberOfTables;
+        if (numberOfTables == 0 || (numberOfTables > 1 && rows >= smallestPrimeFactor(numberOfTables))) {
+            LOG.debug("Can't rotate {} people round {} tables so using a greedy solution", nonHosts.size(),
+                    numberOfTables);
+            return createGreedySolution(scenario, random);
+        }
 
         long startTime = System.nanoTime();
 
-        Solution bestSolution = initialSolution;
-        double initialScore = (initialSolution == null) ? 0 : scoreSolution(scenario, initialSolution);
-        double bestScore = initialScore;
-
-        LOG.debug(String.format("Initial solution score %f", bestScore));
-
-        for (int iteration = 0; iteration < iterations; iteration++) {
+        Solution solution = newSolution(scenario);
 
-            Solution solution = createSolution(scenario, random);
+        Collections.shuffle(nonHosts, random);
 
-            double score = scoreSolution(scenario, solution);
+        int courseNumber = 0;
+        for (Course course : scenario.findAllCourses()) {
 
-            LOG.debug(String.format("Iteration %d solution score %f", iteration, score));
+            /* add a host to each table */
+            for (int tableNumber = 0; tableNumber < hosts.size(); tableNumber++) {
+                solution.addSeating(hosts.get(tableNumber), course, tables.get(tableNumber));
+            }
 
-            if (score > bestScore) {
-                bestScore = score;
-                bestSolution = solution;
+            /* and move each row of non hosts round the tables */
+            for (int i = 0; i < nonHosts.size(); i++) {
+                int row = i / numberOfTables;
+                int column = i % numberOfTables;
+                int tableNumber = (int) ((column + (long) (row + 1) * courseNumber) % numberOfTables);
+                solution.addSeating(nonHosts.get(i), course, tables.get(tableNumber));
             }
+
+            courseNumber++;
         }
 
+        repairConstraints(scenario, solution, random);
+
         long endTime = System.nanoTime();
-        LOG.debug(
-                "bestRandomGuessStrategy generated {} solutions in {} ms from an initial score of {} producing a best score of {}",
-                iterations, TimeUnit.NANOSECONDS.toMillis(endTime - startTime), initialScore, bestScore);
+        LOG.debug("Rotation solution generated in {} us", TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
 
-        return new ImmutablePair<Solution, Double>(bestSolution, bestScore);
+        return solution;
     }
 
-    /**
-     * Generate a random solution, them tweak it, score it and repeat
-     * 
-     * @param scenario
+    /*
+     * Swap non hosts between tables, a course at a time, so the pairs who must or mustn't sit together do or don't.
+     * Swaps that break fewer pairs are made while there are any. When there are none left but pairs are still broken,
+     * someone breaking one is swapped with a random person where that breaks no more, to get out of places where
+     * mending one pair means breaking another, and then mending carries on. The table sizes don't change and nothing
+     * is done, and no random numbers used, if there are no such pairs. It gives up after a while as some pairs, such as
+     * more people who must sit together than fit at a table, can't be kept to.
+     */
+    protected void repairConstraints(Scenario scenario, Solution solution, Random random) {
+
+        SeatingConstraints constraints = SeatingConstraints.of(scenario);
+        if (constraints.isEmpty()) {
+            return;
+        }
+
+        List<Person> nonHosts = IterableUtils.toList(scenario.findAllPeopleByHost(false));
+        List<Person> constrained = new ArrayList<>();
+        for (Person person : nonHosts) {
+            if (constraints.isConstrained(person)) {
+                constrained.add(person);
+            }
+        }
+
+        int maxSidewaysSwaps = REPAIR_SIDEWAYS_SWAPS_PER_PERSON * nonHosts.size();
+        List<Person> breaking = new ArrayList<>();
+        for (Course course : scenario.findAllCourses()) {
+            for (int sidewaysSwaps = 0; sidewaysSwaps < maxSidewaysSwaps; sidewaysSwaps++) {
+
+                /* each swap mends at least one pair so this stops, only people breaking a pair can mend one */
+                boolean mended = true;
+                while (mended) {
+                    mended = false;
+                    for (Person person1 : constrained) {
+                        if (constraints.countBrokenByPersonAndCourse(solution, course, person1) == 0) {
+                            continue;
+                        }
+                        Table table1 = solution.findTableByPersonAndCourse(person1, course).get();
+                        for (Person person2 : nonHosts) {
+                            Table table2 = solution.findTableByPersonAndCourse(person2, course).get();
+                            if (!table1.equals(table2) && constraints.countBrokenChangeBySwap(solution, course,
+                                    person1, person2, table1, table2) < 0) {
+                                solution.swapPeopleOnCourse(course, person1, person2);
+                                table1 = table2;
+                                mended = true;
+                            }
+                        }
+                    }
+                }
+
+                breaking.clear();
+                for (Person person : constrained) {
+                    if (constraints.countBrokenByPersonAndCourse(solution, course, person) > 0) {
+                        breaking.add(person);
+                    }
+                }
+                if (breaking.isEmpty()) {
+                    break;
+                }
+
+                Person person1 = breaking.get(random.nextInt(breaking.size()));
+                Person person2 = nonHosts.get(random.nextInt(nonHosts.size()));
+                Table table1 = solution.findTableByPersonAndCourse(person1, course).get();
+                Table table2 = solution.findTableByPersonAndCourse(person2, course).get();
+                if (!table1.equals(table2)
+                        && constraints.countBrokenChangeBySwap(solution, course, person1, person2, table1, table2) <= 0) {
+                    solution.swapPeopleOnCourse(course, person1, person2);
+                }
+            }
+        }
+
+        int broken = constraints.countAllBroken(solution);
+        if (broken > 0) {
+            LOG.warn("Initial solution breaks {} of the pairs who must or mustn't sit together", broken);
+        }
+    }
+
+    private static int smallestPrimeFactor(int n) {
+        for (int factor = 2; factor * factor <= n; factor++) {
+            if (n % factor == 0) {
+                return factor;
+            }
+        }
+        return n;
+    }
+
+    /*
+     * An empty solution using the selected solution model.
+     */
+    protected Solution newSolution(Scenario scenario) {
+        switch (solutionModel) {
+        case "triple":
+            return new TripleListSolution();
+        case "bitset":
+            return new BitSetSolution(scenario);
+        case "compact":
+            return new CompactSolution(scenario);
+        default:
+            return new IntArraySolution(scenario);
+        }
+    }
+
+    protected double scoreSolution(Scenario scenario, Solution solution) {
+
+        long startTime = System.nanoTime();
+
+        boolean valid = isValidSolution(scenario, solution);
+
+        /* how many different people does each person get to sit with */
+        long peopleMet = countAllDistinctPeopleMet(solution, scenario.findAllPeople());
+
+        /* how many different tables does each person get to sit on */
+        long tablesSatAt = countAllDistinctTablesSatAt(solution, scenario.findAllPeopleByHost(false));
+
+        /* combine scores with weightings */
+        double solutionScore = new ScoreWeightings(scenario).score(valid, peopleMet, tablesSatAt);
+
+        long endTime = System.nanoTime();
+
+        LOG.trace("Solution scored in {} us", TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
+
+        return solutionScore;
+    }
+
+    protected boolean isValidSolution(Scenario scenario, Solution solution) {
+
+        /* make sure the pairs who must sit together do and the pairs who mustn't don't */
+        return isValidHosts(scenario, solution) && SeatingConstraints.of(scenario).countAllBroken(solution) == 0;
+    }
+
+    /*
+     * Every table has one host on every course and every host stays at one table, read from the counts the solution
+     * keeps up to date rather than counting the hosts at every table
+     */
+    protected boolean isValidHosts(Scenario scenario, Solution solution) {
+        boolean valid = solution.countAllCourseTablesWithOneHost() == scenario.countAllCourses()
+                * scenario.countAllTables()
+                && solution.countAllHostsAtOneTable() == scenario.countAllPeopleByHost(true);
+        if (verifyScores && valid != countValidHosts(scenario, solution)) {
+            throw new IllegalStateException(String.format(
+                    "Solution's hosts are kept as %s but counting them says they are %s", valid ? "valid" : "invalid",
+                    valid ? "invalid" : "valid"));
+        }
+        return valid;
+    }
+
+    /*
+     * The same check by counting the hosts at every table, only done when verifying
+     */
+    protected boolean countValidHosts(Scenario scenario, Solution solution) {
+
+        /* make sure one and only one host per table for each course */
+        for (Table tables : scenario.findAllTables()) {
+            for (Course courses : scenario.findAllCourses()) {
+                long hosts = solution.countAllPeopleByHostAndCourseAndTable(true, courses, tables);
+                if (hosts != 1) {
+                    return false;
+                }
+            }
+        }
+
+        /* make sure host only sits on one table */
+        for (Person host : scenario.findAllPeopleByHost(true)) {
+            long numTables = solution.countAllDistinctTablesByPerson(host);
+            if (numTables != 1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * Total of the number of different people each of the people sits with
+     */
+    protected long countAllDistinctPeopleMet(Solution solution, Iterable<Person> people) {
+        long total = 0;
+        for (Person person : people) {
+            total += solution.countAllDistinctPeopleMetByPerson(person);
+        }
+        return total;
+    }
+
+    /*
+     * Total of the number of different tables each of the non hosts sits at
+     */
+    protected long countAllDistinctTablesSatAt(Solution solution, Iterable<Person> people) {
+        long total = 0;
+        for (Person person : people) {
+            if (!person.isHost()) {
+                total += solution.countAllDistinctTablesByPerson(person);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Turns the totals of different people met and different tables sat at into a score between 0 and 1. Everything
+     * that depends on the size of the scenario is worked out up front so a score can be recalculated cheaply from
+     * totals that have been adjusted after a small change to a solution.
+     */
+    protected final class ScoreWeightings {
+
+        private final double peopleMetWeighting;
+
+        private final double tablesSatAtWeighting;
+
+        public ScoreWeightings(Scenario scenario) {
+            long numberOfTables = scenario.countAllTables();
+            long numberOfPeople = scenario.countAllPeople();
+            long numberOfNonHosts = scenario.countAllPeopleByHost(false);
+            long maxPeoplePerTable = (int) Math.ceil((double) numberOfPeople / numberOfTables);
+            long mostPeopleAPersonCanMeet = numberOfCourses * (maxPeoplePerTable - 1);
+            long mostNumberOfDifferentTablesAPersonCanSitAt = Math.min(numberOfTables, numberOfCourses);
+
+            /* each total is averaged over the people it covers, averaging over no one scores 0 */
+            this.peopleMetWeighting = (numberOfPeople == 0) ? 0.0
+                    : differentPeopleWeighting / ((double) mostPeopleAPersonCanMeet * numberOfPeople);
+            this.tablesSatAtWeighting = (numberOfNonHosts == 0) ? 0.0
+                    : differentTablesWeighting / ((double) mostNumberOfDifferentTablesAPersonCanSitAt * numberOfNonHosts);
+        }
+
+        public double score(boolean valid, long peopleMet, long tablesSatAt) {
+            return valid ? peopleMet * peopleMetWeighting + tablesSatAt * tablesSatAtWeighting : 0.0;
+        }
+    }
+
+    /**
+     * The outcome of trying to make a random change to a solution.
+     */
+    protected enum Change {
+        SWAPPED, MOVED, SKIPPED_SAME_PERSON, SKIPPED_SAME_TABLE, SKIPPED_CONSTRAINT;
+
+        public boolean isSkipped() {
+            return this == SKIPPED_SAME_PERSON || this == SKIPPED_SAME_TABLE || this == SKIPPED_CONSTRAINT;
+        }
+    }
+
+    /**
+     * A solution that is changed in place by swapping two non hosts between tables, or moving one of them to the
+     * other's table, for a course. The totals that make up the score are kept and adjusted for just the people affected
+     * by each change so a change can be kept or undone without rescoring the whole solution. Only non hosts are picked
+     * to be changed, so a change keeps each table's host by construction and can't alter whether every table has one,
+     * which is only worked out when the solution is first scored. The number of broken pairs who must or mustn't sit together
+     * is kept the same way, and a random change that would break more of them is turned down before it is made.
+     */
+    protected final class ScoredSolution {
+
+        private final Scenario scenario;
+
+        private final Solution solution;
+
+        private final ScoreWeightings weightings;
+
+        /* one host per table, which changes can't alter */
+        private final boolean hostsValid;
+
+        private final SeatingConstraints constraints;
+
+        private final List<Course> courses;
+
+        /* the only people changed */
+        private final List<Person> nonHosts;
+
+        /* may be null */
+        private final ScoreCache cache;
+
+        private long peopleMet;
+
+        private long tablesSatAt;
+
+        private int broken;
+
+        private double score;
+
+        private int prevBroken;
+
+        private long prevPeopleMet;
+
+        private long prevTablesSatAt;
+
+        private double prevScore;
+
+        /* the change being made, the first person goes from one table to the other and the second the other way */
+        private Change change;
+
+        private Course changeCourse;
+
+        private Person changePerson1;
+
+        private Person changePerson2;
+
+        private Table changeFromTable;
+
+        private Table changeToTable;
+
+        public ScoredSolution(Scenario scenario, Solution solution) {
+            this(scenario, solution, null);
+        }
+
+        /**
+         * @param scenario
+         *            the scenario being solved
+         * @param solution
+         *            the solution to score and change
+         * @param cache
+         *            totals of solutions already seen, added to as changes are made, or null to always score changes
+         */
+        public ScoredSolution(Scenario scenario, Solution solution, ScoreCache cache) {
+            this.scenario = scenario;
+            this.solution = solution;
+            this.weightings = new ScoreWeightings(scenario);
+            this.constraints = SeatingConstraints.of(scenario);
+            this.broken = constraints.countAllBroken(solution);
+            this.hostsValid = isValidHosts(scenario, solution);
+            this.courses = IterableUtils.toList(scenario.findAllCourses());
+            this.nonHosts = IterableUtils.toList(scenario.findAllPeopleByHost(false));
+            this.peopleMet = countAllDistinctPeopleMet(solution, scenario.findAllPeople());
+            this.tablesSatAt = countAllDistinctTablesSatAt(solution, scenario.findAllPeople());
+            this.score = weightings.score(isValid(), peopleMet, tablesSatAt);
+            this.cache = cache;
+            if (cache != null) {
+                cache.put(solution.getHash(), peopleMet, tablesSatAt);
+            }
+        }
+
+        public Solution getSolution() {
+            return solution;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        private boolean isValid() {
+            return hostsValid && broken == 0;
+        }
+
+        public int getBroken() {
+            return broken;
+        }
+
+        /**
+         * Whether the change just made leaves the solution better. A change that mends any of the broken pairs who must
+         * or mustn't sit together is better whatever the score, as an invalid solution scores 0 however close it is to
+         * being valid, so a search from a solution that breaks some pairs can still work its way to a valid one.
+         * 
+         * @return true if the change breaks fewer pairs, or as many and scores higher
+         */
+        public boolean isImprovement() {
+            return broken < prevBroken || (broken == prevBroken && score > prevScore);
+        }
+
+        /**
+         * Pick a course and two non hosts at random and swap them, or move one to the other's table if their tables
+         * have different numbers of people. A change that breaks more of the pairs who must or mustn't sit together is
+         * skipped. The change is recorded on the solution until it is kept or undone.
+         * 
+         * @param random
+         *            for repeatable random numbers
+         * @return what was changed, if anything
+         */
+        public Change randomChange(Random random) {
+
+            if (nonHosts.isEmpty()) {
+                return Change.SKIPPED_SAME_PERSON;
+            }
+
+            Course course = courses.get(random.nextInt(courses.size()));
+            Person person1 = nonHosts.get(random.nextInt(nonHosts.size()));
+            Person person2 = nonHosts.get(random.nextInt(nonHosts.size()));
+
+            if (person1.equals(person2)) {
+                return Change.SKIPPED_SAME_PERSON;
+            }
+
+            Table table1 = solution.findTableByPersonAndCourse(person1, course).get();
+            Table table2 = solution.findTableByPersonAndCourse(person2, course).get();
+            if (table1.equals(table2)) {
+                return Change.SKIPPED_SAME_TABLE;
+            }
+
+            /* decide is we are going to swap two people or just move a single person */
+            long peopleOnTable1 = solution.countAllPeopleByCourseAndTable(course, table1);
+            long peopleOnTable2 = solution.countAllPeopleByCourseAndTable(course, table2);
+
+            boolean canMove = (peopleOnTable1 != peopleOnTable2);
+
+            if (canMove && random.nextBoolean()) {
+                if (peopleOnTable1 > peopleOnTable2) {
+                    int brokenChange = constraints.countBrokenChangeByMove(solution, course, person1, table1, table2);
+                    if (brokenChange > 0) {
+                        return Change.SKIPPED_CONSTRAINT;
+                    }
+                    return makeChange(Change.MOVED, course, person1, null, table1, table2, brokenChange);
+                } else {
+                    int brokenChange = constraints.countBrokenChangeByMove(solution, course, person2, table2, table1);
+                    if (brokenChange > 0) {
+                        return Change.SKIPPED_CONSTRAINT;
+                    }
+                    return makeChange(Change.MOVED, course, person2, null, table2, table1, brokenChange);
+                }
+            } else {
+                int brokenChange = constraints.countBrokenChangeBySwap(solution, course, person1, person2, table1,
+                        table2);
+                if (brokenChange > 0) {
+                    return Change.SKIPPED_CONSTRAINT;
+                }
+                return makeChange(Change.SWAPPED, course, person1, person2, table1, table2, brokenChange);
+            }
+        }
+
+        /**
+         * Move a person from one table to another for a course, or swap them with a person on the other table. The
+         * change is recorded on the solution until it is kept or undone.
+         * 
+         * @param change
+         *            either {@link Change#MOVED} or {@link Change#SWAPPED}
+         * @param course
+         *            the course to change
+         * @param person1
+         *            the person to move or swap
+         * @param person2
+         *            the person to swap with, not used for a move
+         * @param fromTable
+         *            the table the first person is sat at
+         * @param toTable
+         *            the table the first person goes to, where the second person is sat for a swap
+         * @return the change made
+         */
+        public Change makeChange(Change change, Course course, Person person1, Person person2, Table fromTable,
+                Table toTable) {
+            int brokenChange = (change == Change.MOVED)
+                    ? constraints.countBrokenChangeByMove(solution, course, person1, fromTable, toTable)
+                    : constraints.countBrokenChangeBySwap(solution, course, person1, person2, fromTable, toTable);
+            return makeChange(change, course, person1, person2, fromTable, toTable, brokenChange);
+        }
+
+        /* the change in the number of broken pairs has already been worked out to decide whether to make it */
+        private Change makeChange(Change change, Course course, Person person1, Person person2, Table fromTable,
+                Table toTable, int brokenChange) {
+
+            this.change = change;
+            this.changeCourse = course;
+            this.changePerson1 = person1;
+            this.changePerson2 = person2;
+            this.changeFromTable = fromTable;
+            this.changeToTable = toTable;
+
+            /* the hash the solution will have after the change, to see if it has been seen before */
+            long hash = 0;
+            int slot = ScoreCache.NOT_FOUND;
+            if (cache != null) {
+                hash = solution.getHash() ^ changeKeys();
+                slot = cache.find(hash);
+            }
+
+            /*
+             * only the people sat at the two tables on this course can meet different people and only the people moved
+             * can sit at different tables, the same people are on the two tables after the change
+             */
+            long affectedPeopleMet = 0;
+            long movedTablesSatAt = 0;
+            if (slot == ScoreCache.NOT_FOUND) {
+                affectedPeopleMet = countAffectedPeopleMet();
+                movedTablesSatAt = countMovedTablesSatAt();
+            }
+
+            /* record the change so it can be undone */
+            solution.beginChanges();
+            applyChange();
+
+            prevPeopleMet = peopleMet;
+            prevTablesSatAt = tablesSatAt;
+            prevBroken = broken;
+            prevScore = score;
+            broken += brokenChange;
+            if (slot == ScoreCache.NOT_FOUND) {
+                peopleMet += countAffectedPeopleMet() - affectedPeopleMet;
+                tablesSatAt += countMovedTablesSatAt() - movedTablesSatAt;
+                if (cache != null) {
+                    cache.put(hash, peopleMet, tablesSatAt);
+                }
+            } else {
+                peopleMet = cache.getPeopleMet(slot);
+                tablesSatAt = cache.getTablesSatAt(slot);
+            }
+            score = weightings.score(isValid(), peopleMet, tablesSatAt);
+
+            if (verifyScores) {
+                if (cache != null && solution.getHash() != hash) {
+                    throw new IllegalStateException(String.format("Expected solution hash %x but it is %x", hash,
+                            solution.getHash()));
+                }
+                double fullScore = scoreSolution(scenario, solution);
+                if (fullScore != score) {
+                    throw new IllegalStateException(String.format(
+                            "Incremental score %f does not match full score %f", score, fullScore));
+                }
+            }
+
+            return change;
+        }
+
+        private long countAffectedPeopleMet() {
+            return solution.countAllDistinctPeopleMetByCourseAndTable(changeCourse, changeFromTable)
+                    + solution.countAllDistinctPeopleMetByCourseAndTable(changeCourse, changeToTable);
+        }
+
+        /* the keys of the seatings the change removes and adds */
+        private long changeKeys() {
+            long keys = Zobrist.key(changePerson1, changeCourse, changeFromTable)
+                    ^ Zobrist.key(changePerson1, changeCourse, changeToTable);
+            if (change == Change.SWAPPED) {
+                keys ^= Zobrist.key(changePerson2, changeCourse, changeToTable)
+                        ^ Zobrist.key(changePerson2, changeCourse, changeFromTable);
+            }
+            return keys;
+        }
+
+        private long countMovedTablesSatAt() {
+            long moved = solution.countAllDistinctTablesByPerson(changePerson1);
+            if (change == Change.SWAPPED) {
+                moved += solution.countAllDistinctTablesByPerson(changePerson2);
+            }
+            return moved;
+        }
+
+        public Change getChange() {
+            return change;
+        }
+
+        public Course getChangeCourse() {
+            return changeCourse;
+        }
+
+        public Person getChangePerson1() {
+            return changePerson1;
+        }
+
+        public Person getChangePerson2() {
+            return changePerson2;
+        }
+
+        public Table getChangeFromTable() {
+            return changeFromTable;
+        }
+
+        public Table getChangeToTable() {
+            return changeToTable;
+        }
+
+        private void applyChange() {
+            if (change == Change.MOVED) {
+                solution.movePersonOnCourseToTable(changePerson1, changeCourse, changeToTable);
+            } else {
+                solution.swapPeopleOnCourse(changeCourse, changePerson1, changePerson2);
+            }
+        }
+
+        /**
+         * Copy the solution as it was before the current change, leaving the change in place to be kept or undone.
+         * 
+         * @return a copy of the solution without the current change
+         */
+        public Solution copyBeforeChange() {
+            solution.rollbackChanges();
+            Solution copy = solution.copy();
+            solution.beginChanges();
+            applyChange();
+            return copy;
+        }
+
+        public void keepChange() {
+            solution.commitChanges();
+        }
+
+        public void undoChange() {
+            solution.rollbackChanges();
+            peopleMet = prevPeopleMet;
+            tablesSatAt = prevTablesSatAt;
+            broken = prevBroken;
+            score = prevScore;
+        }
+    }
+
+    /**
+     * Repeatedly generate random solutions, score them and keep the best one
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            an initial solution to start with
+     * @param random
+     *            for repeatable random numbers
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> bestRandomGuessStrategy(Scenario scenario, Solution initialSolution, Random random) {
+        return bestRandomGuessStrategy(scenario, initialSolution, random, new Termination(iterations, deadline()),
+                newProgress("random"), 0, checkpointFilePath);
+    }
+
+    /*
+     * Starts counting from the first iteration, more than 0 when resumed, and saves the best solution to the
+     * checkpoint path, if there is one, every checkpoint interval
+     */
+    private Pair<Solution, Double> bestRandomGuessStrategy(Scenario scenario, Solution initialSolution, Random random,
+            Termination termination, StrategyProgress progress, int firstIteration, Path checkpointPath) {
+
+        LOG.debug("Starting bestRandomGuessStrategy");
+
+        /* random guesses are the initial solution unless another way of building one was chosen */
+        if (initialSolution == null && !"random".equals(initialSolutionBuilder)) {
+            initialSolution = createInitialSolution(scenario, random);
+        }
+
+        Solution bestSolution = initialSolution;
+        double initialScore = (initialSolution == null) ? 0 : scoreSolution(scenario, initialSolution);
+        double bestScore = initialScore;
+
+        progress.initialised(initialScore);
+
+        LOG.debug(String.format("Initial solution score %f", bestScore));
+
+        /* checked once up front as building the per iteration messages allocates even if they aren't logged */
+        boolean debug = LOG.isDebugEnabled();
+
+        int iteration;
+        for (iteration = firstIteration; !termination.isFinished(iteration); iteration++) {
+
+            Solution solution = createSolution(scenario, random);
+
+            double score = scoreSolution(scenario, solution);
+            progress.evaluated();
+
+            if (debug) {
+                LOG.debug(String.format("Iteration %d solution score %f", iteration, score));
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestSolution = solution;
+                termination.improved();
+                progress.accepted();
+            } else {
+                progress.rejected();
+            }
+
+            progress.iterated(score, bestScore);
+
+            if (checkpointPath != null && bestSolution != null && checkpointInterval > 0
+                    && (iteration + 1) % checkpointInterval == 0) {
+                writeCheckpoint(checkpointPath, scenario, "random", iteration + 1, bestSolution, bestScore, random);
+            }
+        }
+
+        if (checkpointPath != null && bestSolution != null) {
+            writeCheckpoint(checkpointPath, scenario, "random", iteration, bestSolution, bestScore, random);
+        }
+
+        progress.finished();
+        LOG.debug(
+                "bestRandomGuessStrategy generated {} solutions in {} ms ({} evaluations per second) from an initial score of {} producing a best score of {}",
+                progress.getEvaluations(), TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()),
+                progress.getEvaluationsPerSecond(), initialScore, bestScore);
+
+        return new ImmutablePair<Solution, Double>(bestSolution, bestScore);
+    }
+
+    /**
+     * Repeatedly generate random solutions in parallel, score them and keep the best one.
+     * 
+     * The iterations are split into fixed size chunks, each with its own random numbers split from a single
+     * {@link SplittableRandom}, so the best solution found only depends on the seed and not on the number of threads
+     * or how the chunks get scheduled.
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            an initial solution to start with
+     * @param random
+     *            for repeatable random numbers
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> parallelBestRandomGuessStrategy(Scenario scenario, Solution initialSolution,
+            Random random) {
+
+        LOG.debug("Starting parallelBestRandomGuessStrategy with {} threads", threads);
+
+        long startTime = System.nanoTime();
+
+        /*
+         * built once here and given to every chunk as the best to beat, so the chunks don't each build their own, it is
+         * only read so can be shared between them
+         */
+        Solution chunkInitialSolution = (initialSolution == null && !"random".equals(initialSolutionBuilder))
+                ? createInitialSolution(scenario, random)
+                : initialSolution;
+
+        /* all the chunks share one time limit */
+        long deadline = deadline();
+        SplittableRandom splittableRandom = new SplittableRandom(random.nextLong());
+        List<Callable<Pair<Solution, Double>>> chunks = new ArrayList<>();
+        for (int start = 0; start < iterations; start += RANDOM_GUESS_CHUNK_SIZE) {
+            int chunkIterations = Math.min(RANDOM_GUESS_CHUNK_SIZE, iterations - start);
+            long chunkSeed = splittableRandom.split().nextLong();
+            String chunkName = "random " + (chunks.size() + 1);
+            chunks.add(() -> bestRandomGuessStrategy(scenario, chunkInitialSolution, new Random(chunkSeed),
+                    new Termination(chunkIterations, deadline), newProgress(chunkName), 0, null));
+        }
+
+        List<Pair<Solution, Double>> solutionScores = invokeAllInParallel(chunks);
+        if (chunks.isEmpty() && chunkInitialSolution != null) {
+            /* no iterations to run, as the strategy does on one thread the initial solution is the best found */
+            solutionScores = Collections.singletonList(new ImmutablePair<Solution, Double>(chunkInitialSolution,
+                    scoreSolution(scenario, chunkInitialSolution)));
+        }
+
+        Pair<Solution, Double> best = bestOf(solutionScores);
+
+        long endTime = System.nanoTime();
+        LOG.debug("parallelBestRandomGuessStrategy ran {} chunks in {} ms producing a best score of {}", chunks.size(),
+                TimeUnit.NANOSECONDS.toMillis(endTime - startTime), best.getRight());
+
+        return best;
+    }
+
+    /**
+     * Generate a random solution, them tweak it, score it and repeat
+     * 
+     * @param scenario
      *            the scenario to solve
      * @param initialSolution
      *            a solution to start with to see if it can be improved
@@ -424,80 +1548,698 @@ public class SeatingPlan implements Runnable {
      * @return the best solution found or null if no valid solution found
      */
     public Pair<Solution, Double> swapAndRepeatStrategy(Scenario scenario, Solution initialSolution, Random random) {
+        return swapAndRepeatStrategy(scenario, initialSolution, random, newProgress("swap"), 0, checkpointFilePath);
+    }
+
+    /*
+     * Starts counting from the first iteration, more than 0 when resumed, and saves the solution to the checkpoint
+     * path, if there is one, every checkpoint interval
+     */
+    private Pair<Solution, Double> swapAndRepeatStrategy(Scenario scenario, Solution initialSolution, Random random,
+            StrategyProgress progress, int firstIteration, Path checkpointPath) {
 
         LOG.debug("Starting swapAndRepeatStrategy");
 
-        long startTime = System.nanoTime();
+        Termination termination = new Termination(iterations, deadline());
 
-        Solution solution = (initialSolution == null) ? createSolution(scenario, random) : initialSolution;
+        /* changes are made in place so leave the initial solution as it was */
+        Solution solution = (initialSolution == null) ? createInitialSolution(scenario, random)
+                : initialSolution.copy();
 
-        double score = scoreSolution(scenario, solution);
+        ScoreCache cache = newScoreCache();
+        ScoredSolution scoredSolution = new ScoredSolution(scenario, solution, cache);
 
-        List<Course> courses = IterableUtils.toList(scenario.findAllCourses());
-        List<Person> people = IterableUtils.toList(scenario.findAllPeople());
+        progress.initialised(scoredSolution.getScore());
 
-        for (int iteration = 0; iteration < iterations; iteration++) {
+        /* checked once up front as building the per iteration messages allocates even if they aren't logged */
+        boolean debug = LOG.isDebugEnabled();
 
-            Solution prevSolution = solution;
-            solution = solution.copy();
-            double prevScore = score;
+        int iteration;
+        for (iteration = firstIteration; !termination.isFinished(iteration); iteration++) {
 
-            Course course = courses.get(random.nextInt(courses.size()));
-            Person person1 = people.get(random.nextInt(people.size()));
-            Person person2 = people.get(random.nextInt(people.size()));
+            double prevScore = scoredSolution.getScore();
 
-            if (!person1.isHost() && !person2.isHost() && !person1.equals(person2)) {
+            Change change = scoredSolution.randomChange(random);
 
-                Table table1 = solution.findTableByPersonAndCourse(person1, course).get();
-                Table table2 = solution.findTableByPersonAndCourse(person2, course).get();
-                boolean canSwap = !table1.equals(table2);
+            if (change == Change.SKIPPED_SAME_PERSON) {
+                if (debug) {
+                    LOG.debug(String.format("Skipping iteration %d as can't swap same person", iteration));
+                }
+                progress.skipped();
+            } else if (change == Change.SKIPPED_SAME_TABLE) {
+                if (debug) {
+                    LOG.debug(String.format("Skipping iteration %d as can't swap person to same table", iteration));
+                }
+                progress.skipped();
+            } else if (change == Change.SKIPPED_CONSTRAINT) {
+                if (debug) {
+                    LOG.debug(String.format("Skipping iteration %d as the change breaks who must sit together or apart",
+                            iteration));
+                }
+                progress.skipped();
+            } else {
+                progress.evaluated();
+                double score = scoredSolution.getScore();
+                if (!scoredSolution.isImprovement()) {
+                    if (debug) {
+                        LOG.debug(String.format(
+                                "Iteration %d solution score %f, worse than current score %f so reverting", iteration,
+                                score, prevScore));
+                    }
+                    scoredSolution.undoChange();
+                    progress.rejected();
+                } else {
+                    if (debug) {
+                        LOG.debug(String.format(
+                                "Iteration %d solution score %f better than current score %f so keeping", iteration,
+                                score, prevScore));
+                    }
+                    scoredSolution.keepChange();
+                    termination.improved();
+                    progress.accepted();
+                }
+            }
+
+            /* only ever keeps a better solution so the current one is the best */
+            progress.iterated(scoredSolution.getScore(), scoredSolution.getScore());
 
-                if (canSwap) {
+            if (checkpointPath != null && checkpointInterval > 0 && (iteration + 1) % checkpointInterval == 0) {
+                writeCheckpoint(checkpointPath, scenario, "swap", iteration + 1, solution, scoredSolution.getScore(),
+                        random);
+            }
+        }
 
-                    /* decide is we are going to swap two people or just move a single person */
-                    long peopleOnTable1 = solution.countAllPeopleByCourseAndTable(course, table1);
-                    long peopleOnTable2 = solution.countAllPeopleByCourseAndTable(course, table2);
+        double score = scoredSolution.getScore();
 
-                    boolean canMove = (peopleOnTable1 != peopleOnTable2);
+        if (checkpointPath != null) {
+            writeCheckpoint(checkpointPath, scenario, "swap", iteration, solution, score, random);
+        }
 
-                    if (canMove && random.nextBoolean()) {
-                        LOG.debug("moving...");
-                        if (peopleOnTable1 > peopleOnTable2) {
-                            solution.movePersonOnCourseToTable(person1, course, table2);
-                        } else {
-                            solution.movePersonOnCourseToTable(person2, course, table1);
-                        }
+        progress.finished();
+        LOG.debug(
+                "swapAndRepeatStrategy generated {} solutions in {} ms ({} evaluations per second) with a best score of {}",
+                progress.getEvaluations(), TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()),
+                progress.getEvaluationsPerSecond(), score);
+        logScoreCache(progress, cache);
+
+        return new ImmutablePair<Solution, Double>(solution, score);
+    }
+
+    /**
+     * Simulated annealing. Make the same random changes as swap and repeat but also keep some changes that make the
+     * solution worse, with a probability that falls as the temperature cools, so the search can escape local optima.
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            a solution to start with to see if it can be improved
+     * @param random
+     *            for repeatable random numbers
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> annealStrategy(Scenario scenario, Solution initialSolution, Random random) {
+
+        LOG.debug("Starting annealStrategy");
+
+        StrategyProgress progress = newProgress("anneal");
+        Termination termination = new Termination(iterations, deadline());
+
+        /* changes are made in place so leave the initial solution as it was */
+        Solution solution = (initialSolution == null) ? createInitialSolution(scenario, random)
+                : initialSolution.copy();
+
+        ScoreCache cache = newScoreCache();
+        ScoredSolution scoredSolution = new ScoredSolution(scenario, solution, cache);
+
+        /* the best solution is only copied when about to make a change that leaves it */
+        Solution bestSolution = null;
+        double bestScore = scoredSolution.getScore();
+        boolean currentIsBest = true;
+
+        double temperature = annealStartTemperature;
+        int iterationsSinceBest = 0;
+        int reheats = 0;
+
+        progress.initialised(bestScore);
+
+        for (int iteration = 0; !termination.isFinished(iteration); iteration++) {
+
+            double prevScore = scoredSolution.getScore();
+
+            Change change = scoredSolution.randomChange(random);
+
+            if (change.isSkipped()) {
+                progress.skipped();
+            } else {
+                progress.evaluated();
+                double score = scoredSolution.getScore();
+                double delta = score - prevScore;
+                if (scoredSolution.isImprovement() || random.nextDouble() < Math.exp(delta / temperature)) {
+                    if (currentIsBest && score < bestScore) {
+                        bestSolution = scoredSolution.copyBeforeChange();
+                    }
+                    scoredSolution.keepChange();
+                    if (score > bestScore) {
+                        bestScore = score;
+                        currentIsBest = true;
+                        iterationsSinceBest = 0;
+                        termination.improved();
                     } else {
-                        LOG.debug("swapping...");
-                        solution.swapPeopleOnCourse(course, person1, person2);
+                        currentIsBest = currentIsBest && score == bestScore;
                     }
+                    progress.accepted();
+                } else {
+                    scoredSolution.undoChange();
+                    progress.rejected();
+                }
+            }
 
-                    score = scoreSolution(scenario, solution);
+            temperature *= annealCoolingRate;
 
-                    if (score <= prevScore) {
-                        LOG.debug(String.format(
-                                "Iteration %d solution score %f, worse than current score %f so reverting", iteration,
-                                score, prevScore));
-                        solution = prevSolution;
-                        score = prevScore;
+            iterationsSinceBest++;
+            if (annealReheat > 0 && iterationsSinceBest >= annealReheat) {
+                LOG.debug("Iteration {} reheating after {} iterations without a better solution", iteration,
+                        iterationsSinceBest);
+                temperature = annealStartTemperature;
+                iterationsSinceBest = 0;
+                reheats++;
+            }
+
+            progress.iterated(scoredSolution.getScore(), bestScore);
+        }
+
+        if (currentIsBest) {
+            bestSolution = scoredSolution.getSolution();
+        }
+
+        progress.finished();
+        LOG.debug(
+                "annealStrategy generated {} solutions in {} ms ({} evaluations per second) with {} reheats and a best score of {}",
+                progress.getEvaluations(), TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()),
+                progress.getEvaluationsPerSecond(), reheats, bestScore);
+        logScoreCache(progress, cache);
+
+        return new ImmutablePair<Solution, Double>(bestSolution, bestScore);
+    }
+
+    /**
+     * Tabu search. On each iteration score a number of random swaps and moves and make the best one, even if it makes
+     * the solution worse, but stop people going straight back to a table they have just been moved off for a while so
+     * the search doesn't undo its own changes. A forbidden change is still allowed if it finds a new best solution.
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            a solution to start with to see if it can be improved
+     * @param random
+     *            for repeatable random numbers
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> tabuStrategy(Scenario scenario, Solution initialSolution, Random random) {
+
+        LOG.debug("Starting tabuStrategy");
+
+        StrategyProgress progress = newProgress("tabu");
+        Termination termination = new Termination(iterations, deadline());
+
+        /* changes are made in place so leave the initial solution as it was */
+        Solution solution = (initialSolution == null) ? createInitialSolution(scenario, random)
+                : initialSolution.copy();
+
+        ScoreCache cache = newScoreCache();
+        ScoredSolution scoredSolution = new ScoredSolution(scenario, solution, cache);
+        TabuMemory tabuMemory = new TabuMemory(scenario);
+
+        /* the best solution is only copied when about to make a change that leaves it */
+        Solution bestSolution = null;
+        double bestScore = scoredSolution.getScore();
+        boolean currentIsBest = true;
+
+        progress.initialised(bestScore);
+
+        for (int iteration = 0; !termination.isFinished(iteration); iteration++) {
+
+            /* score the neighbourhood, undoing each change, and remember the best change allowed */
+            Change bestChange = null;
+            Course bestCourse = null;
+            Person bestPerson1 = null;
+            Person bestPerson2 = null;
+            Table bestFromTable = null;
+            Table bestToTable = null;
+            double bestChangeScore = 0.0;
+            int bestChangeBroken = 0;
+
+            for (int neighbour = 0; neighbour < tabuNeighbourhood; neighbour++) {
+                Change change = scoredSolution.randomChange(random);
+                if (change.isSkipped()) {
+                    progress.skipped();
+                    continue;
+                }
+                progress.evaluated();
+                double score = scoredSolution.getScore();
+                Course course = scoredSolution.getChangeCourse();
+                boolean tabu = tabuMemory.isTabu(scoredSolution.getChangePerson1(), course,
+                        scoredSolution.getChangeToTable(), iteration)
+                        || (change == Change.SWAPPED && tabuMemory.isTabu(scoredSolution.getChangePerson2(), course,
+                                scoredSolution.getChangeFromTable(), iteration));
+                int broken = scoredSolution.getBroken();
+                /* mending pairs comes first, so a search from an invalid solution can get to a valid one */
+                if ((!tabu || score > bestScore) && (bestChange == null || broken < bestChangeBroken
+                        || (broken == bestChangeBroken && score > bestChangeScore))) {
+                    bestChange = change;
+                    bestCourse = course;
+                    bestPerson1 = scoredSolution.getChangePerson1();
+                    bestPerson2 = scoredSolution.getChangePerson2();
+                    bestFromTable = scoredSolution.getChangeFromTable();
+                    bestToTable = scoredSolution.getChangeToTable();
+                    bestChangeScore = score;
+                    bestChangeBroken = broken;
+                }
+                scoredSolution.undoChange();
+            }
+
+            if (bestChange == null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Skipping iteration {} as no change allowed", iteration);
+                }
+                progress.skipped();
+                progress.iterated(scoredSolution.getScore(), bestScore);
+                continue;
+            }
+
+            if (currentIsBest && bestChangeScore < bestScore) {
+                bestSolution = scoredSolution.getSolution().copy();
+            }
+
+            scoredSolution.makeChange(bestChange, bestCourse, bestPerson1, bestPerson2, bestFromTable, bestToTable);
+            scoredSolution.keepChange();
+
+            /* stop whoever was moved from going straight back */
+            tabuMemory.forbid(bestPerson1, bestCourse, bestFromTable, iteration + tabuTenure);
+            if (bestChange == Change.SWAPPED) {
+                tabuMemory.forbid(bestPerson2, bestCourse, bestToTable, iteration + tabuTenure);
+            }
+
+            if (bestChangeScore > bestScore) {
+                bestScore = bestChangeScore;
+                currentIsBest = true;
+                termination.improved();
+            } else {
+                currentIsBest = currentIsBest && bestChangeScore == bestScore;
+            }
+
+            progress.accepted();
+            progress.iterated(scoredSolution.getScore(), bestScore);
+        }
+
+        if (currentIsBest) {
+            bestSolution = scoredSolution.getSolution();
+        }
+
+        progress.finished();
+        LOG.debug("tabuStrategy made {} evaluations in {} ms ({} evaluations per second) with a best score of {}",
+                progress.getEvaluations(), TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()),
+                progress.getEvaluationsPerSecond(), bestScore);
+        logScoreCache(progress, cache);
+
+        return new ImmutablePair<Solution, Double>(bestSolution, bestScore);
+    }
+
+    /**
+     * Remembers the table each person was last moved off for each course and until which iteration they are
+     * forbidden from going back to it. Held in arrays indexed by person and course id so checking a change is constant
+     * time.
+     */
+    protected static final class TabuMemory {
+
+        private final int courseSlots;
+
+        private final int[] tableIdByPersonAndCourse;
+
+        private final int[] untilIterationByPersonAndCourse;
+
+        public TabuMemory(Scenario scenario) {
+            int maxPersonId = 0;
+            for (Person person : scenario.findAllPeople()) {
+                maxPersonId = Math.max(maxPersonId, person.getId());
+            }
+            int maxCourseId = 0;
+            for (Course course : scenario.findAllCourses()) {
+                maxCourseId = Math.max(maxCourseId, course.getId());
+            }
+            this.courseSlots = maxCourseId + 1;
+            this.tableIdByPersonAndCourse = new int[(maxPersonId + 1) * courseSlots];
+            this.untilIterationByPersonAndCourse = new int[(maxPersonId + 1) * courseSlots];
+            Arrays.fill(untilIterationByPersonAndCourse, -1);
+        }
+
+        public boolean isTabu(Person person, Course course, Table table, int iteration) {
+            int index = person.getId() * courseSlots + course.getId();
+            return untilIterationByPersonAndCourse[index] >= iteration
+                    && tableIdByPersonAndCourse[index] == table.getId();
+        }
+
+        public void forbid(Person person, Course course, Table table, int untilIteration) {
+            int index = person.getId() * courseSlots + course.getId();
+            tableIdByPersonAndCourse[index] = table.getId();
+            untilIterationByPersonAndCourse[index] = untilIteration;
+        }
+    }
+
+    /**
+     * Genetic algorithm. Keep a population of solutions and breed each generation from the last: pick two parents, each
+     * the best of a few picked at random, take each course's seating from one parent or the other, then make a few
+     * random swaps and moves. Each course of a parent has one host per table and keeps to the pairs who must or mustn't
+     * sit together, so the child of two valid parents is valid too. The best few solutions are carried into the next
+     * generation as they are so the best score never falls.
+     * 
+     * An iteration is a generation. Every child is bred and scored with its own random numbers, seeded from the main
+     * random numbers before the generation starts, so the children are shared between the threads and the result only
+     * depends on the seed, not on the number of threads.
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            a solution to be one of the first generation, or null for all of them to be built
+     * @param random
+     *            for repeatable random numbers
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> geneticStrategy(Scenario scenario, Solution initialSolution, Random random) {
+
+        LOG.debug("Starting geneticStrategy with a population of {} on {} threads", geneticPopulation, threads);
+
+        StrategyProgress progress = newProgress("genetic");
+        Termination termination = new Termination(iterations, deadline());
+
+        List<Course> courses = IterableUtils.toList(scenario.findAllCourses());
+
+        /* one pool for every generation rather than starting threads for each */
+        ForkJoinPool pool = (threads > 1) ? new ForkJoinPool(threads) : null;
+        try {
+            List<Callable<Pair<Solution, Double>>> founders = new ArrayList<>();
+            for (int i = 0; i < geneticPopulation; i++) {
+                long founderSeed = random.nextLong();
+                Solution given = (i == 0) ? initialSolution : null;
+                founders.add(() -> {
+                    Solution solution = (given == null) ? createInitialSolution(scenario, new Random(founderSeed))
+                            : given;
+                    return new ImmutablePair<Solution, Double>(solution, scoreSolution(scenario, solution));
+                });
+            }
+            List<Pair<Solution, Double>> population = invokeAll(pool, founders);
+
+            Pair<Solution, Double> best = bestOf(population);
+            progress.initialised(best.getRight());
+
+            boolean debug = LOG.isDebugEnabled();
+
+            for (int generation = 0; !termination.isFinished(generation); generation++) {
+
+                long generationStartTime = System.nanoTime();
+
+                List<Pair<Solution, Double>> parents = population;
+                List<Callable<Triple<Solution, Double, Double>>> children = new ArrayList<>();
+                for (int i = geneticElite; i < geneticPopulation; i++) {
+                    long childSeed = random.nextLong();
+                    children.add(() -> breed(scenario, courses, parents, new Random(childSeed)));
+                }
+
+                population = new ArrayList<>(fittest(parents, geneticElite));
+                for (Triple<Solution, Double, Double> child : invokeAll(pool, children)) {
+                    progress.evaluated();
+                    /* a child is only counted as kept if it beats both its parents */
+                    if (child.getMiddle() > child.getRight()) {
+                        progress.accepted();
                     } else {
-                        LOG.debug(
-                                String.format("Iteration %d solution score %f better than current score %f so keeping",
-                                        iteration, score, prevScore));
+                        progress.rejected();
                     }
-                } else {
-                    LOG.debug(String.format("Skipping iteration %d as can't swap person to same table", iteration));
+                    population.add(new ImmutablePair<Solution, Double>(child.getLeft(), child.getMiddle()));
                 }
 
+                Pair<Solution, Double> generationBest = bestOf(population);
+                if (generationBest.getRight() > best.getRight()) {
+                    best = generationBest;
+                    termination.improved();
+                }
+
+                if (debug) {
+                    long generationNanos = Math.max(System.nanoTime() - generationStartTime, 1);
+                    LOG.debug(String.format("Generation %d best score %f, best so far %f, %d evaluations per second",
+                            generation, generationBest.getRight(), best.getRight(),
+                            children.size() * TimeUnit.SECONDS.toNanos(1) / generationNanos));
+                }
+                progress.iterated(generationBest.getRight(), best.getRight());
+            }
+
+            progress.finished();
+            LOG.debug(
+                    "geneticStrategy made {} evaluations in {} generations in {} ms ({} evaluations per second) with a best score of {}",
+                    progress.getEvaluations(), progress.getIterations(),
+                    TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()), progress.getEvaluationsPerSecond(),
+                    best.getRight());
+
+            return best;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /*
+     * A child of two parents with some random changes made to it, its score and the better of its parents' scores
+     */
+    private Triple<Solution, Double, Double> breed(Scenario scenario, List<Course> courses,
+            List<Pair<Solution, Double>> population, Random random) {
+
+        Pair<Solution, Double> parent1 = tournament(population, random);
+        Pair<Solution, Double> parent2 = tournament(population, random);
+
+        /* each course is taken whole from one parent or the other */
+        Set<Course> fromParent2 = new HashSet<>();
+        for (Course course : courses) {
+            if (random.nextBoolean()) {
+                fromParent2.add(course);
+            }
+        }
+
+        Solution child = newSolution(scenario);
+        for (Triple<Person, Course, Table> seating : parent1.getLeft().findAllSeatings()) {
+            if (!fromParent2.contains(seating.getMiddle())) {
+                child.addSeating(seating.getLeft(), seating.getMiddle(), seating.getRight());
+            }
+        }
+        if (!fromParent2.isEmpty()) {
+            for (Triple<Person, Course, Table> seating : parent2.getLeft().findAllSeatings()) {
+                if (fromParent2.contains(seating.getMiddle())) {
+                    child.addSeating(seating.getLeft(), seating.getMiddle(), seating.getRight());
+                }
+            }
+        }
+
+        /* the same changes the swap strategy makes, all of them kept */
+        ScoredSolution scoredChild = new ScoredSolution(scenario, child);
+        for (int mutation = 0; mutation < geneticMutations; mutation++) {
+            if (!scoredChild.randomChange(random).isSkipped()) {
+                scoredChild.keepChange();
+            }
+        }
+
+        return new ImmutableTriple<Solution, Double, Double>(child, scoredChild.getScore(),
+                Math.max(parent1.getRight(), parent2.getRight()));
+    }
+
+    /*
+     * The best of a few solutions picked at random, the first picked on a tie
+     */
+    private static Pair<Solution, Double> tournament(List<Pair<Solution, Double>> population, Random random) {
+        Pair<Solution, Double> winner = population.get(random.nextInt(population.size()));
+        for (int i = 1; i < GENETIC_TOURNAMENT_SIZE; i++) {
+            Pair<Solution, Double> entrant = population.get(random.nextInt(population.size()));
+            if (entrant.getRight() > winner.getRight()) {
+                winner = entrant;
+            }
+        }
+        return winner;
+    }
+
+    /*
+     * The highest scoring solutions, in the order they were in on a tie
+     */
+    private static List<Pair<Solution, Double>> fittest(List<Pair<Solution, Double>> population, int count) {
+        List<Pair<Solution, Double>> sorted = new ArrayList<>(population);
+        sorted.sort(Comparator.comparing(Pair<Solution, Double>::getRight).reversed());
+        return sorted.subList(0, count);
+    }
+
+    /*
+     * Run the tasks on a pool, or one after another if there isn't one, and return the results in the same order
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        try {
+            if (pool == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
             } else {
-                LOG.debug(String.format("Skipping iteration %d as can't swap host or same person", iteration));
+                for (Future<T> future : pool.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for parallel searches", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Search failed", e);
+        }
+    }
+
+    /*
+     * When the time limit is up, as a System.nanoTime, or 0 if there is no time limit
+     */
+    protected long deadline() {
+        return (timeLimit > 0) ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimit) : 0;
+    }
+
+    /**
+     * Decides when a strategy should stop: after its iterations are done, once the time limit is up or after too many
+     * iterations without finding a better solution. Reading the clock every iteration can cost as much as a cheap
+     * iteration so it is only read every so many iterations, doubling or halving how many so the reads are roughly a
+     * millisecond apart.
+     */
+    protected final class Termination {
+
+        private final int maxIterations;
+
+        private final long deadline;
+
+        private int iterationsSinceImprovement;
+
+        private int iterationsBetweenChecks = 1;
+
+        private int iterationsUntilCheck = 1;
+
+        private long lastCheckTime = System.nanoTime();
+
+        /**
+         * @param maxIterations
+         *            the most iterations to do
+         * @param deadline
+         *            when to stop as a {@link System#nanoTime()}, or 0 for no time limit
+         */
+        public Termination(int maxIterations, long deadline) {
+            this.maxIterations = maxIterations;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Note a better solution has been found.
+         */
+        public void improved() {
+            iterationsSinceImprovement = 0;
+        }
+
+        /**
+         * Called once before each iteration to see if the strategy should stop instead.
+         * 
+         * @param iteration
+         *            the iteration about to start
+         * @return true if the strategy should stop
+         */
+        public boolean isFinished(int iteration) {
+            if (iteration >= maxIterations) {
+                return true;
+            }
+            if (stopAfterNoImprovement > 0 && iterationsSinceImprovement++ >= stopAfterNoImprovement) {
+                LOG.debug("Stopping after {} iterations as no better solution found in the last {}", iteration,
+                        stopAfterNoImprovement);
+                return true;
             }
+            if (deadline != 0 && --iterationsUntilCheck <= 0) {
+                long now = System.nanoTime();
+                if (now - deadline >= 0) {
+                    LOG.debug("Stopping after {} iterations as the time limit is up", iteration);
+                    return true;
+                }
+                long sinceLastCheck = now - lastCheckTime;
+                if (sinceLastCheck < TIME_LIMIT_CHECK_NANOS
+                        && iterationsBetweenChecks < MAX_ITERATIONS_BETWEEN_TIME_LIMIT_CHECKS) {
+                    iterationsBetweenChecks *= 2;
+                } else if (sinceLastCheck > 2 * TIME_LIMIT_CHECK_NANOS && iterationsBetweenChecks > 1) {
+                    iterationsBetweenChecks /= 2;
+                }
+                lastCheckTime = now;
+                iterationsUntilCheck = iterationsBetweenChecks;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Run a number of independent swap and repeat searches in parallel, one per thread, and keep the best
+     * 
+     * @param scenario
+     *            the scenario to solve
+     * @param initialSolution
+     *            a solution for every search to start with, or null for each to start from its own random solution
+     * @param random
+     *            for repeatable random numbers, used to seed each search
+     * @return the best solution found or null if no valid solution found
+     */
+    public Pair<Solution, Double> parallelSwapAndRepeatStrategy(Scenario scenario, Solution initialSolution,
+            Random random) {
+
+        LOG.debug("Starting parallelSwapAndRepeatStrategy with {} threads", threads);
+
+        long startTime = System.nanoTime();
+
+        /* seeds are taken up front so each search gets the same one whichever thread runs it */
+        List<Callable<Pair<Solution, Double>>> searches = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long searchSeed = random.nextLong();
+            String searchName = "swap " + (i + 1);
+            searches.add(() -> swapAndRepeatStrategy(scenario, initialSolution, new Random(searchSeed),
+                    newProgress(searchName), 0, null));
         }
 
+        Pair<Solution, Double> best = bestOf(invokeAllInParallel(searches));
+
         long endTime = System.nanoTime();
-        LOG.debug("swapAndRepeatStrategy generated {} solutions in {} ms with a best score of {}", iterations,
-                TimeUnit.NANOSECONDS.toMillis(endTime - startTime), score);
+        LOG.debug("parallelSwapAndRepeatStrategy ran {} searches in {} ms with a best score of {}", threads,
+                TimeUnit.NANOSECONDS.toMillis(endTime - startTime), best.getRight());
 
-        return new ImmutablePair<Solution, Double>(solution, score);
+        return best;
+    }
+
+    /*
+     * Run each task on its own pool thread and wait for all the results, in the same order as the tasks
+     */
+    protected <T> List<T> invokeAllInParallel(List<Callable<T>> tasks) {
+        ForkJoinPool pool = new ForkJoinPool(Math.min(threads, Math.max(tasks.size(), 1)));
+        try {
+            return invokeAll(pool, tasks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+     * The highest scoring solution, on a tie the earliest is kept so the result doesn't depend on thread timing
+     */
+    protected Pair<Solution, Double> bestOf(List<Pair<Solution, Double>> solutionScores) {
+        Pair<Solution, Double> best = new ImmutablePair<Solution, Double>(null, 0.0);
+        for (Pair<Solution, Double> solutionScore : solutionScores) {
+            if (best.getLeft() == null || solutionScore.getRight() > best.getRight()) {
+                best = solutionScore;
+            }
+        }
+        return best;
     }
 }
@@ -0,0 +1,416 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Triple;
+
+import co.uk.threeonefour.seatingplan.model.Course;
+import co.uk.threeonefour.seatingplan.model.Person;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import co.uk.threeonefour.seatingplan.model.Solution;
+import co.uk.threeonefour.seatingplan.model.Table;
+
+/**
+ * A solution laid out for printing. The seatings are read from the solution in one pass into arrays of who sits where,
+ * and everything printed is worked out from those, so a report takes time in proportion to the number of seatings and
+ * the size of the tables rather than asking the solution about every person on every course.
+ *
+ * The report can be written as the text table, as CSV with one row per person or as a JSON object.
+ */
+public class SolutionReport {
+
+    private static final int NONE = -1;
+
+    private static final int FIRST_COL_WIDTH = 20;
+
+    private static final int OTHER_COL_WIDTH = 12;
+
+    private final double score;
+
+    private final List<Person> people;
+
+    private final List<Course> courses;
+
+    private final List<Table> tables;
+
+    /* person x course -> table index */
+    private final int[] tableByPersonAndCourse;
+
+    /* table -> the table's host, if it has one */
+    private final Person[] hostByTable;
+
+    /* course x table -> people indexes sat at the table */
+    private final List<List<Integer>> occupantsByCourseAndTable;
+
+    /* person -> number of different people sat with and tables sat at */
+    private final int[] peopleMetByPerson;
+
+    private final int[] tablesSatAtByPerson;
+
+    /* reused when counting who a person sits with, cleared after each person */
+    private final int[] coursesTogether;
+
+    public SolutionReport(Scenario scenario, Solution solution, double score) {
+        this.score = score;
+        this.people = IterableUtils.toList(scenario.findAllPeople());
+        this.courses = IterableUtils.toList(scenario.findAllCourses());
+        this.tables = IterableUtils.toList(scenario.findAllTables());
+
+        Map<Person, Integer> personIndexes = indexesOf(people);
+        Map<Course, Integer> courseIndexes = indexesOf(courses);
+        Map<Table, Integer> tableIndexes = indexesOf(tables);
+
+        this.tableByPersonAndCourse = new int[people.size() * courses.size()];
+        Arrays.fill(tableByPersonAndCourse, NONE);
+        this.hostByTable = new Person[tables.size()];
+        this.occupantsByCourseAndTable = new ArrayList<>(courses.size() * tables.size());
+        for (int i = 0; i < courses.size() * tables.size(); i++) {
+            occupantsByCourseAndTable.add(new ArrayList<>());
+        }
+
+        /* the one pass over the solution */
+        for (Triple<Person, Course, Table> seating : solution.findAllSeatings()) {
+            int p = personIndexes.get(seating.getLeft());
+            int c = courseIndexes.get(seating.getMiddle());
+            int t = tableIndexes.get(seating.getRight());
+            tableByPersonAndCourse[p * courses.size() + c] = t;
+            occupantsByCourseAndTable.get(c * tables.size() + t).add(p);
+            if (seating.getLeft().isHost() && hostByTable[t] == null) {
+                hostByTable[t] = seating.getLeft();
+            }
+        }
+
+        this.coursesTogether = new int[people.size()];
+        this.peopleMetByPerson = new int[people.size()];
+        this.tablesSatAtByPerson = new int[people.size()];
+        for (int p = 0; p < people.size(); p++) {
+            peopleMetByPerson[p] = peopleMet(p).size();
+            clearCoursesTogether(p);
+            tablesSatAtByPerson[p] = countTablesSatAt(p);
+        }
+    }
+
+    private static <T> Map<T, Integer> indexesOf(List<T> list) {
+        Map<T, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            indexes.put(list.get(i), i);
+        }
+        return indexes;
+    }
+
+    /*
+     * The people a person sits with in scenario order, with how many courses they sit together for left in
+     * coursesTogether until it is cleared
+     */
+    private List<Integer> peopleMet(int p) {
+        List<Integer> met = new ArrayList<>();
+        for (int c = 0; c < courses.size(); c++) {
+            int t = tableByPersonAndCourse[p * courses.size() + c];
+            if (t != NONE) {
+                for (int q : occupantsByCourseAndTable.get(c * tables.size() + t)) {
+                    if (q != p && coursesTogether[q]++ == 0) {
+                        met.add(q);
+                    }
+                }
+            }
+        }
+        Collections.sort(met);
+        return met;
+    }
+
+    private void clearCoursesTogether(int p) {
+        for (int c = 0; c < courses.size(); c++) {
+            int t = tableByPersonAndCourse[p * courses.size() + c];
+            if (t != NONE) {
+                for (int q : occupantsByCourseAndTable.get(c * tables.size() + t)) {
+                    coursesTogether[q] = 0;
+                }
+            }
+        }
+    }
+
+    private int countTablesSatAt(int p) {
+        int count = 0;
+        for (int c = 0; c < courses.size(); c++) {
+            int t = tableByPersonAndCourse[p * courses.size() + c];
+            boolean seen = (t == NONE);
+            for (int prev = 0; prev < c && !seen; prev++) {
+                seen = tableByPersonAndCourse[p * courses.size() + prev] == t;
+            }
+            if (!seen) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* what goes in a person's cell for a course, the host of their table or the table if it has no host */
+    private String cell(int p, int c) {
+        int t = tableByPersonAndCourse[p * courses.size() + c];
+        if (t == NONE) {
+            return null;
+        }
+        return (hostByTable[t] != null) ? hostByTable[t].getName() : tables.get(t).getName();
+    }
+
+    /**
+     * Write the report in a format.
+     *
+     * @param pw
+     *            where to write the report, left open
+     * @param format
+     *            one of text|csv|json
+     */
+    public void write(PrintWriter pw, String format) {
+        switch (format) {
+        case "csv":
+            writeCsv(pw);
+            break;
+        case "json":
+            writeJson(pw);
+            break;
+        default:
+            writeText(pw);
+            break;
+        }
+    }
+
+    /**
+     * Write the report as a text table of where everyone sits followed by a list of who each host sits with.
+     *
+     * @param pw
+     *            where to write the report, left open
+     */
+    public void writeText(PrintWriter pw) {
+
+        pw.println();
+        pw.println(String.format("Solution score %f", score));
+
+        /* first the header rows */
+        pw.println("");
+        for (int hdrRow = 0; hdrRow < 2; hdrRow++) {
+
+            pw.print("| ");
+            if (hdrRow == 0) {
+                pw.print(truncateAndPad("Name", FIRST_COL_WIDTH));
+            } else {
+                pw.print(StringUtils.repeat('-', FIRST_COL_WIDTH));
+            }
+            pw.print(" | ");
+
+            for (Iterator<Course> it = courses.iterator(); it.hasNext();) {
+                Course course = it.next();
+                if (hdrRow == 0) {
+                    pw.print(truncateAndPad(course.getName(), OTHER_COL_WIDTH));
+                } else {
+                    pw.print(StringUtils.repeat('-', OTHER_COL_WIDTH));
+                }
+                if (it.hasNext()) {
+                    pw.print(" | ");
+                }
+            }
+
+            pw.print(" | ");
+            if (hdrRow == 0) {
+                pw.print(truncateAndPad("# People", OTHER_COL_WIDTH));
+            } else {
+                pw.print(StringUtils.repeat('-', OTHER_COL_WIDTH));
+            }
+
+            pw.print(" | ");
+            if (hdrRow == 0) {
+                pw.print(truncateAndPad("# Tables", OTHER_COL_WIDTH));
+            } else {
+                pw.print(StringUtils.repeat('-', OTHER_COL_WIDTH));
+            }
+
+            pw.println(" |");
+        }
+
+        /* then the rows */
+        for (int p = 0; p < people.size(); p++) {
+            Person person = people.get(p);
+            pw.print("| ");
+            if (person.isHost()) {
+                pw.print("**");
+                pw.print("(h) ");
+                pw.print(truncateAndPad(person.getName(), FIRST_COL_WIDTH - 8));
+                pw.print("**");
+            } else {
+                pw.print(truncateAndPad(person.getName(), FIRST_COL_WIDTH));
+            }
+            pw.print(" | ");
+            for (int c = 0; c < courses.size(); c++) {
+                String cell = cell(p, c);
+                if (cell != null) {
+                    pw.print(truncateAndPad(cell, OTHER_COL_WIDTH));
+                } else {
+                    pw.print(StringUtils.repeat('-', OTHER_COL_WIDTH));
+                }
+                pw.print(" | ");
+            }
+            pw.print(truncateAndPad(String.valueOf(peopleMetByPerson[p]), OTHER_COL_WIDTH));
+            pw.print(" | ");
+            pw.print(truncateAndPad(String.valueOf(tablesSatAtByPerson[p]), OTHER_COL_WIDTH));
+            pw.print(" |");
+            pw.println();
+        }
+
+        /* and the footer */
+        pw.println();
+
+        /* and print all hosts and people they sit with */
+        for (int h = 0; h < people.size(); h++) {
+            if (!people.get(h).isHost()) {
+                continue;
+            }
+            pw.print("* ");
+            pw.println(people.get(h).getName());
+            for (int q : peopleMet(h)) {
+                pw.print("  * ");
+                pw.println(people.get(q).getName());
+            }
+            clearCoursesTogether(h);
+        }
+        pw.println();
+    }
+
+    private static final String truncateAndPad(String str, int width) {
+        return StringUtils.rightPad(StringUtils.truncate(str, width), width);
+    }
+
+    /**
+     * Write the report as CSV, a header row and then a row for each person with their host at each course and the
+     * number of people and tables they sit with.
+     *
+     * @param pw
+     *            where to write the report, left open
+     */
+    public void writeCsv(PrintWriter pw) {
+        pw.print("Name,Host");
+        for (Course course : courses) {
+            pw.print(',');
+            pw.print(csv(course.getName()));
+        }
+        pw.println(",# People,# Tables");
+        for (int p = 0; p < people.size(); p++) {
+            pw.print(csv(people.get(p).getName()));
+            pw.print(',');
+            pw.print(people.get(p).isHost());
+            for (int c = 0; c < courses.size(); c++) {
+                pw.print(',');
+                String cell = cell(p, c);
+                pw.print((cell == null) ? "" : csv(cell));
+            }
+            pw.print(',');
+            pw.print(peopleMetByPerson[p]);
+            pw.print(',');
+            pw.print(tablesSatAtByPerson[p]);
+            pw.println();
+        }
+    }
+
+    private static String csv(String value) {
+        if (StringUtils.containsAny(value, ',', '"', '\n', '\r')) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * Write the report as a JSON object with the score, where each person sits with their counts and who each host
+     * sits with.
+     *
+     * @param pw
+     *            where to write the report, left open
+     */
+    public void writeJson(PrintWriter pw) {
+        pw.println("{");
+        pw.print("  \"score\": ");
+        pw.print(score);
+        pw.println(",");
+        pw.println("  \"people\": [");
+        for (int p = 0; p < people.size(); p++) {
+            pw.print("    {\"name\": ");
+            pw.print(json(people.get(p).getName()));
+            pw.print(", \"host\": ");
+            pw.print(people.get(p).isHost());
+            pw.print(", \"courses\": [");
+            for (int c = 0; c < courses.size(); c++) {
+                int t = tableByPersonAndCourse[p * courses.size() + c];
+                if (c > 0) {
+                    pw.print(", ");
+                }
+                pw.print("{\"course\": ");
+                pw.print(json(courses.get(c).getName()));
+                pw.print(", \"table\": ");
+                pw.print((t == NONE) ? "null" : json(tables.get(t).getName()));
+                pw.print(", \"tableHost\": ");
+                pw.print((t == NONE || hostByTable[t] == null) ? "null" : json(hostByTable[t].getName()));
+                pw.print("}");
+            }
+            pw.print("], \"peopleMet\": ");
+            pw.print(peopleMetByPerson[p]);
+            pw.print(", \"tablesSatAt\": ");
+            pw.print(tablesSatAtByPerson[p]);
+            pw.println((p < people.size() - 1) ? "}," : "}");
+        }
+        pw.println("  ],");
+        pw.println("  \"hosts\": [");
+        boolean first = true;
+        for (int h = 0; h < people.size(); h++) {
+            if (!people.get(h).isHost()) {
+                continue;
+            }
+            if (!first) {
+                pw.println(",");
+            }
+            first = false;
+            pw.print("    {\"name\": ");
+            pw.print(json(people.get(h).getName()));
+            pw.print(", \"sitsWith\": [");
+            boolean firstMet = true;
+            for (int q : peopleMet(h)) {
+                if (!firstMet) {
+                    pw.print(", ");
+                }
+                firstMet = false;
+                pw.print("{\"name\": ");
+                pw.print(json(people.get(q).getName()));
+                pw.print(", \"courses\": ");
+                pw.print(coursesTogether[q]);
+                pw.print("}");
+            }
+            clearCoursesTogether(h);
+            pw.print("]}");
+        }
+        pw.println();
+        pw.println("  ]");
+        pw.println("}");
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch < ' ') {
+                sb.append(String.format("\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,19 @@
+package co.uk.threeonefour.seatingplan;
+
+/**
+ * Told how a strategy is getting on. Added to a {@link SeatingPlan} with
+ * {@link SeatingPlan#addStrategyListener(StrategyListener)}.
+ */
+public interface StrategyListener {
+
+    /**
+     * Called every so many iterations while a strategy runs, as set by the sample interval, and once more when it
+     * finishes. Strategies run in parallel call this from their own threads.
+     *
+     * @param progress
+     *            how the strategy is getting on, this is reused by the strategy so copy anything that needs keeping
+     * @param finished
+     *            true for the last call once the strategy has finished
+     */
+    void progress(StrategyProgress progress, boolean finished);
+}
@@ -0,0 +1,183 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts what a strategy does as it runs and passes it on to the listeners every so many iterations. Counting is just
+ * incrementing fields and the clock is only read when the listeners are told, so this is cheap enough to leave in the
+ * strategies' inner loops. What counts as accepted, rejected and skipped is up to each strategy.
+ *
+ * The time is split into two phases, building and scoring the initial solution and then searching from it.
+ */
+public final class StrategyProgress {
+
+    private final String strategy;
+
+    private final List<StrategyListener> listeners;
+
+    private final int sampleInterval;
+
+    private final long startTime;
+
+    private int iterationsUntilSample;
+
+    private long initialNanos;
+
+    private long elapsedNanos;
+
+    private int iterations;
+
+    private long evaluations;
+
+    private long accepted;
+
+    private long rejected;
+
+    private long skipped;
+
+    private double currentScore;
+
+    private double bestScore;
+
+    /**
+     * Start counting for a strategy, the clock starts now.
+     *
+     * @param strategy
+     *            the name of the strategy, used to tell apart the progress of strategies run one after the other or in
+     *            parallel
+     * @param listeners
+     *            who to tell
+     * @param sampleInterval
+     *            tell the listeners every this many iterations, 0 to only tell them when the strategy finishes
+     */
+    public StrategyProgress(String strategy, List<StrategyListener> listeners, int sampleInterval) {
+        this.strategy = strategy;
+        this.listeners = listeners;
+        this.sampleInterval = sampleInterval;
+        this.startTime = System.nanoTime();
+        this.iterationsUntilSample = sampleInterval;
+    }
+
+    /**
+     * The initial solution has been built and scored, which ends the first phase.
+     *
+     * @param score
+     *            the initial solution's score
+     */
+    public void initialised(double score) {
+        initialNanos = System.nanoTime() - startTime;
+        currentScore = score;
+        bestScore = score;
+    }
+
+    public void evaluated() {
+        evaluations++;
+    }
+
+    public void accepted() {
+        accepted++;
+    }
+
+    public void rejected() {
+        rejected++;
+    }
+
+    public void skipped() {
+        skipped++;
+    }
+
+    /**
+     * An iteration has been done, the listeners are told if it is time for a sample.
+     *
+     * @param currentScore
+     *            the score of the solution the strategy is working on
+     * @param bestScore
+     *            the best score found so far
+     */
+    public void iterated(double currentScore, double bestScore) {
+        this.iterations++;
+        this.currentScore = currentScore;
+        this.bestScore = bestScore;
+        if (sampleInterval > 0 && --iterationsUntilSample == 0) {
+            iterationsUntilSample = sampleInterval;
+            if (!listeners.isEmpty()) {
+                elapsedNanos = System.nanoTime() - startTime;
+                for (StrategyListener listener : listeners) {
+                    listener.progress(this, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * The strategy has finished, stops the clock and tells the listeners.
+     */
+    public void finished() {
+        elapsedNanos = System.nanoTime() - startTime;
+        for (StrategyListener listener : listeners) {
+            listener.progress(this, true);
+        }
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public double getCurrentScore() {
+        return currentScore;
+    }
+
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return time building and scoring the initial solution
+     */
+    public long getInitialNanos() {
+        return initialNanos;
+    }
+
+    /**
+     * @return time searching from the initial solution, up to the last sample
+     */
+    public long getSearchNanos() {
+        return elapsedNanos - initialNanos;
+    }
+
+    /**
+     * @return time since the strategy started, up to the last sample
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return evaluations per second of searching, up to the last sample
+     */
+    public long getEvaluationsPerSecond() {
+        long searchNanos = getSearchNanos();
+        return (searchNanos <= 0) ? 0 : evaluations * TimeUnit.SECONDS.toNanos(1) / searchNanos;
+    }
+}
@@ -0,0 +1,154 @@
+package co.uk.threeonefour.seatingplan;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every progress sample from every strategy and writes them out as CSV or JSON once the strategies are done, so
+ * the score trajectories can be compared when tuning the iterations and weightings.
+ */
+public class TrajectoryExporter implements StrategyListener {
+
+    private static final String[] COLUMNS = { "strategy", "finished", "iterations", "elapsedMillis", "initialMillis",
+            "searchMillis", "evaluations", "evaluationsPerSecond", "accepted", "rejected", "skipped", "currentScore",
+            "bestScore" };
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    @Override
+    public synchronized void progress(StrategyProgress progress, boolean finished) {
+        samples.add(new Sample(progress, finished));
+    }
+
+    /**
+     * Write the samples to a file, as JSON if the file name ends .json and CSV otherwise.
+     *
+     * @param path
+     *            the file to write
+     * @throws IOException
+     *             if the file can't be written
+     */
+    public void write(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().toLowerCase().endsWith(".json")) {
+                writeJson(writer);
+            } else {
+                writeCsv(writer);
+            }
+        }
+    }
+
+    /**
+     * Write the samples as CSV with a header row, in the order they were taken.
+     *
+     * @param writer
+     *            where to write the samples, left open
+     */
+    public synchronized void writeCsv(Writer writer) {
+        PrintWriter pw = new PrintWriter(writer);
+        pw.println(String.join(",", COLUMNS));
+        for (Sample sample : samples) {
+            Object[] values = sample.values();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    pw.print(',');
+                }
+                pw.print(values[i]);
+            }
+            pw.println();
+        }
+        pw.flush();
+    }
+
+    /**
+     * Write the samples as a JSON array of objects, in the order they were taken.
+     *
+     * @param writer
+     *            where to write the samples, left open
+     */
+    public synchronized void writeJson(Writer writer) {
+        PrintWriter pw = new PrintWriter(writer);
+        pw.println("[");
+        for (int s = 0; s < samples.size(); s++) {
+            Object[] values = samples.get(s).values();
+            pw.print("  {");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    pw.print(", ");
+                }
+                pw.print('"');
+                pw.print(COLUMNS[i]);
+                pw.print("\": ");
+                /* strategy names are plain words so only need quoting */
+                pw.print((values[i] instanceof String) ? "\"" + values[i] + "\"" : values[i]);
+            }
+            pw.println((s < samples.size() - 1) ? "}," : "}");
+        }
+        pw.println("]");
+        pw.flush();
+    }
+
+    public synchronized int countAllSamples() {
+        return samples.size();
+    }
+
+    /*
+     * A copy of the progress at the time it was sampled
+     */
+    private static final class Sample {
+
+        private final String strategy;
+
+        private final boolean finished;
+
+        private final int iterations;
+
+        private final long elapsedNanos;
+
+        private final long initialNanos;
+
+        private final long evaluations;
+
+        private final long evaluationsPerSecond;
+
+        private final long accepted;
+
+        private final long rejected;
+
+        private final long skipped;
+
+        private final double currentScore;
+
+        private final double bestScore;
+
+        private Sample(StrategyProgress progress, boolean finished) {
+            this.strategy = progress.getStrategy();
+            this.finished = finished;
+            this.iterations = progress.getIterations();
+            this.elapsedNanos = progress.getElapsedNanos();
+            this.initialNanos = progress.getInitialNanos();
+            this.evaluations = progress.getEvaluations();
+            this.evaluationsPerSecond = progress.getEvaluationsPerSecond();
+            this.accepted = progress.getAccepted();
+            this.rejected = progress.getRejected();
+            this.skipped = progress.getSkipped();
+            this.currentScore = progress.getCurrentScore();
+            this.bestScore = progress.getBestScore();
+        }
+
+        /* in the same order as the columns */
+        private Object[] values() {
+            return new Object[] { strategy, finished, iterations, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(initialNanos),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos - initialNanos), evaluations, evaluationsPerSecond,
+                    accepted, rejected, skipped, currentScore, bestScore };
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
+/**
+ * A solution where the people sat at each table on each course are held as a bitset, one bit per person in an array of
+ * longs.
+ *
+ * People, courses and tables are indexed by their position in the scenario. The table each person sits at on each
+ * course is held in a person x course array, as for {@link IntArraySolution}, and the course x table bitsets are held
+ * one after another in a single long array.
+ *
+ * The people a person meets are the union of the bitsets of the tables they sit at, so the number of distinct people
+ * met is an OR of one word from each course's bitset and a {@link Long#bitCount(long)}, a word at a time. That is 64
+ * people at a time with nothing to keep up to date as people are swapped or moved, which are a couple of bit flips.
+ * Counting the people or hosts at a table is a bit count of the table's bitset, masked with the hosts for hosts.
+ *
+ * Like {@link IntArraySolution}, a Zobrist hash of the seatings and where the hosts sit are kept up to date as people
+ * are seated and moved,
+ * changes are written to a journal of ints while they are being recorded so they can be undone in place, and finding,
+ * counting, swapping and moving don't allocate.
+ */
+public class BitSetSolution implements Solution {
+
+    /* marks an id that is not part of the scenario or a person not seated on a course */
+    private static final int NONE = ScenarioIndex.NONE;
+
+    /* the scenario, these never change so are shared between copies */
+    private final ScenarioIndex index;
+    private final Person[] people;
+    private final Course[] courses;
+    private final Table[] tables;
+
+    /* longs in each bitset */
+    private final int words;
+
+    /* bitset of the people who are hosts */
+    private final long[] hosts;
+
+    /* person x course -> table index */
+    private final int[] tableByPersonAndCourse;
+
+    /* course x table x word -> bitset of the people sat at the table */
+    private final long[] peopleByCourseAndTable;
+
+    /* swaps and moves made since changes began */
+    private final ChangeJournal changes = new ChangeJournal();
+
+    /* where the hosts sit */
+    private final HostSeatings hostSeatings;
+
+    /* Zobrist hash of the seatings */
+    private long hash;
+
+    public BitSetSolution(Scenario scenario) {
+        this.index = ScenarioIndex.of(scenario);
+        this.people = index.people;
+        this.courses = index.courses;
+        this.tables = index.tables;
+        this.words = (people.length + Long.SIZE - 1) / Long.SIZE;
+
+        this.hosts = new long[words];
+        for (int p = 0; p < people.length; p++) {
+            if (people[p].isHost()) {
+                hosts[p >>> 6] |= 1L << p;
+            }
+        }
+
+        this.tableByPersonAndCourse = new int[people.length * courses.length];
+        Arrays.fill(tableByPersonAndCourse, NONE);
+        this.peopleByCourseAndTable = new long[courses.length * tables.length * words];
+        this.hostSeatings = new HostSeatings(index);
+    }
+
+    private BitSetSolution(BitSetSolution orig) {
+        this.index = orig.index;
+        this.people = orig.people;
+        this.courses = orig.courses;
+        this.tables = orig.tables;
+        this.words = orig.words;
+        this.hosts = orig.hosts;
+
+        this.tableByPersonAndCourse = orig.tableByPersonAndCourse.clone();
+        this.peopleByCourseAndTable = orig.peopleByCourseAndTable.clone();
+        this.hash = orig.hash;
+        this.hostSeatings = new HostSeatings(orig.hostSeatings);
+    }
+
+    @Override
+    public Solution copy() {
+        return new BitSetSolution(this);
+    }
+
+    /* where a course and table's bitset starts */
+    private int bitSet(int c, int t) {
+        return (c * tables.length + t) * words;
+    }
+
+    @Override
+    public void addSeating(Person person, Course course, Table table) {
+        int p = index.requireIndex(index.personIndex(person), person);
+        int c = index.requireIndex(index.courseIndex(course), course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        int previous = tableByPersonAndCourse[p * courses.length + c];
+        if (previous != NONE) {
+            peopleByCourseAndTable[bitSet(c, previous) + (p >>> 6)] &= ~(1L << p);
+            hash ^= Zobrist.key(people[p], courses[c], tables[previous]);
+            hostSeatings.unseated(p, c, previous);
+        }
+        seat(p, c, t);
+    }
+
+    private void seat(int p, int c, int t) {
+        peopleByCourseAndTable[bitSet(c, t) + (p >>> 6)] |= 1L << p;
+        tableByPersonAndCourse[p * courses.length + c] = t;
+        hash ^= Zobrist.key(people[p], courses[c], tables[t]);
+        hostSeatings.seated(p, c, t);
+    }
+
+    /* move a seated person to another table, a bit cleared in one bitset and set in the other */
+    private void move(int p, int c, int t) {
+        int pc = p * courses.length + c;
+        peopleByCourseAndTable[bitSet(c, tableByPersonAndCourse[pc]) + (p >>> 6)] &= ~(1L << p);
+        peopleByCourseAndTable[bitSet(c, t) + (p >>> 6)] |= 1L << p;
+        hash ^= Zobrist.key(people[p], courses[c], tables[tableByPersonAndCourse[pc]])
+                ^ Zobrist.key(people[p], courses[c], tables[t]);
+        hostSeatings.moved(p, c, tableByPersonAndCourse[pc], t);
+        tableByPersonAndCourse[pc] = t;
+    }
+
+    private void swap(int p1, int p2, int c) {
+        int t1 = tableByPersonAndCourse[p1 * courses.length + c];
+        int t2 = tableByPersonAndCourse[p2 * courses.length + c];
+        move(p1, c, t2);
+        move(p2, c, t1);
+    }
+
+    @Override
+    public Iterable<Triple<Person, Course, Table>> findAllSeatings() {
+        List<Triple<Person, Course, Table>> seatings = new ArrayList<>();
+        for (int p = 0; p < people.length; p++) {
+            for (int c = 0; c < courses.length; c++) {
+                int t = tableByPersonAndCourse[p * courses.length + c];
+                if (t != NONE) {
+                    seatings.add(ImmutableTriple.of(people[p], courses[c], tables[t]));
+                }
+            }
+        }
+        return seatings;
+    }
+
+    private int tableIndexByPersonAndCourse(Person person, Course course) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        return (p == NONE || c == NONE) ? NONE : tableByPersonAndCourse[p * courses.length + c];
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public long countAllCourseTablesWithOneHost() {
+        return hostSeatings.countCourseTablesWithOneHost();
+    }
+
+    @Override
+    public long countAllHostsAtOneTable() {
+        return hostSeatings.countHostsAtOneTable();
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return MemoryEstimate.ofInts(tableByPersonAndCourse.length)
+                + MemoryEstimate.ofLongs(peopleByCourseAndTable.length) + hostSeatings.estimateMemoryBytes();
+    }
+
+    @Override
+    public Optional<Table> findTableByPersonAndCourse(Person person, Course course) {
+        int t = tableIndexByPersonAndCourse(person, course);
+        return (t == NONE) ? Optional.empty() : index.tableOptionals[t];
+    }
+
+    @Override
+    public long countAllPeopleByHostAndCourseAndTable(boolean host, Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int base = bitSet(c, t);
+        long count = 0;
+        for (int w = 0; w < words; w++) {
+            long seated = peopleByCourseAndTable[base + w];
+            count += Long.bitCount(host ? seated & hosts[w] : seated & ~hosts[w]);
+        }
+        return count;
+    }
+
+    @Override
+    public long countAllDistinctTablesByPerson(Person person) {
+        int p = index.personIndex(person);
+        if (p == NONE) {
+            return 0;
+        }
+        int base = p * courses.length;
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            if (isFirstSeatingAtTable(base, c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* true if the person sat at a table on this course and not on any earlier course */
+    private boolean isFirstSeatingAtTable(int base, int c) {
+        int t = tableByPersonAndCourse[base + c];
+        if (t == NONE) {
+            return false;
+        }
+        for (int prev = 0; prev < c; prev++) {
+            if (tableByPersonAndCourse[base + prev] == t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterable<Table> findAllDistinctTablesByPerson(Person person) {
+        List<Table> distinctTables = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            int base = p * courses.length;
+            for (int c = 0; c < courses.length; c++) {
+                if (isFirstSeatingAtTable(base, c)) {
+                    distinctTables.add(tables[tableByPersonAndCourse[base + c]]);
+                }
+            }
+        }
+        return distinctTables;
+    }
+
+    /* one word of the union of the bitsets of the tables a person sits at */
+    private long peopleMetWord(int p, int w) {
+        int base = p * courses.length;
+        long met = 0;
+        for (int c = 0; c < courses.length; c++) {
+            int t = tableByPersonAndCourse[base + c];
+            if (t != NONE) {
+                met |= peopleByCourseAndTable[bitSet(c, t) + w];
+            }
+        }
+        return met;
+    }
+
+    private int countDistinctPeopleMet(int p) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(peopleMetWord(p, w));
+        }
+        /* the person is in the bitset of every table they sit at, but doesn't meet themself */
+        return (count == 0) ? 0 : count - 1;
+    }
+
+    @Override
+    public Iterable<Person> findAllDistinctPeopleMetByPerson(Person person) {
+        List<Person> peopleMet = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            for (int w = 0; w < words; w++) {
+                long met = peopleMetWord(p, w);
+                while (met != 0) {
+                    int q = (w << 6) + Long.numberOfTrailingZeros(met);
+                    if (q != p) {
+                        peopleMet.add(people[q]);
+                    }
+                    met &= met - 1;
+                }
+            }
+        }
+        return peopleMet;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByPerson(Person person) {
+        int p = index.personIndex(person);
+        return (p == NONE) ? 0 : countDistinctPeopleMet(p);
+    }
+
+    @Override
+    public long countAllCoursesTogetherByPeople(Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        if (p1 == NONE || p2 == NONE || p1 == p2) {
+            return 0;
+        }
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            int t = tableByPersonAndCourse[p1 * courses.length + c];
+            if (t != NONE && t == tableByPersonAndCourse[p2 * courses.length + c]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Person> findAllPeopleByCourseAndTable(Course course, Table table) {
+        List<Person> seated = new ArrayList<>();
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c != NONE && t != NONE) {
+            int base = bitSet(c, t);
+            for (int w = 0; w < words; w++) {
+                long bits = peopleByCourseAndTable[base + w];
+                while (bits != 0) {
+                    seated.add(people[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return seated;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int base = bitSet(c, t);
+        long total = 0;
+        for (int w = 0; w < words; w++) {
+            long bits = peopleByCourseAndTable[base + w];
+            while (bits != 0) {
+                total += countDistinctPeopleMet((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Optional<Person> findPersonByTableAndHost(Table table, boolean host) {
+        int t = index.tableIndex(table);
+        if (t != NONE) {
+            for (int c = 0; c < courses.length; c++) {
+                int base = bitSet(c, t);
+                for (int w = 0; w < words; w++) {
+                    long seated = peopleByCourseAndTable[base + w];
+                    long matching = host ? seated & hosts[w] : seated & ~hosts[w];
+                    if (matching != 0) {
+                        return Optional.of(people[(w << 6) + Long.numberOfTrailingZeros(matching)]);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public long countAllPeopleByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int base = bitSet(c, t);
+        long count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(peopleByCourseAndTable[base + w]);
+        }
+        return count;
+    }
+
+    @Override
+    public void swapPeopleOnCourse(Course course, Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        int c = index.courseIndex(course);
+        if (p1 == NONE || p2 == NONE || c == NONE) {
+            return;
+        }
+        int t1 = tableByPersonAndCourse[p1 * courses.length + c];
+        int t2 = tableByPersonAndCourse[p2 * courses.length + c];
+        if (t1 == NONE || t2 == NONE || t1 == t2) {
+            return;
+        }
+        changes.record(ChangeJournal.SWAP, c, p1, p2);
+        swap(p1, p2, c);
+    }
+
+    @Override
+    public void movePersonOnCourseToTable(Person person, Course course, Table table) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        if (p == NONE || c == NONE || tableByPersonAndCourse[p * courses.length + c] == NONE) {
+            return;
+        }
+        changes.record(ChangeJournal.MOVE, c, p, tableByPersonAndCourse[p * courses.length + c]);
+        move(p, c, t);
+    }
+
+    @Override
+    public void beginChanges() {
+        changes.begin();
+    }
+
+    @Override
+    public void commitChanges() {
+        changes.end();
+    }
+
+    @Override
+    public void rollbackChanges() {
+        /* undo the most recent change first */
+        for (int entry = changes.size() - 1; entry >= 0; entry--) {
+            int c = changes.course(entry);
+            if (changes.kind(entry) == ChangeJournal.SWAP) {
+                swap(changes.value1(entry), changes.value2(entry), c);
+            } else {
+                move(changes.value1(entry), c, changes.value2(entry));
+            }
+        }
+        changes.end();
+    }
+}
@@ -0,0 +1,68 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.Arrays;
+
+/**
+ * The swaps and moves made to an array based solution since changes began, written as ints so they can be undone in
+ * place. The entries are reused so recording changes doesn't allocate once the journal has grown to the size needed.
+ *
+ * Each entry is a kind, a course index and two values: the two people swapped for a swap and the person and the table
+ * they were moved from for a move. The solution undoes the entries itself, most recent first.
+ */
+final class ChangeJournal {
+
+    static final int SWAP = 0;
+    static final int MOVE = 1;
+
+    private static final int ENTRY_SIZE = 4;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] entries = new int[ENTRY_SIZE * INITIAL_CAPACITY];
+    private int size;
+    private boolean recording;
+
+    void begin() {
+        recording = true;
+    }
+
+    /* forget the changes and stop recording, whether they were kept or have been undone */
+    void end() {
+        size = 0;
+        recording = false;
+    }
+
+    void record(int kind, int course, int value1, int value2) {
+        if (!recording) {
+            return;
+        }
+        if ((size + 1) * ENTRY_SIZE > entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        int base = size * ENTRY_SIZE;
+        entries[base] = kind;
+        entries[base + 1] = course;
+        entries[base + 2] = value1;
+        entries[base + 3] = value2;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int kind(int entry) {
+        return entries[entry * ENTRY_SIZE];
+    }
+
+    int course(int entry) {
+        return entries[entry * ENTRY_SIZE + 1];
+    }
+
+    int value1(int entry) {
+        return entries[entry * ENTRY_SIZE + 2];
+    }
+
+    int value2(int entry) {
+        return entries[entry * ENTRY_SIZE + 3];
+    }
+}
@@ -0,0 +1,502 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
+/**
+ * A solution that holds as little as it can for each seating, for events too large to keep many copies of the other
+ * solutions in memory.
+ *
+ * People, courses and tables are indexed by their position in the scenario, as for {@link IntArraySolution}. The table
+ * each person sits at on each course is held in a person x course array of bytes when there are up to
+ * {@value #MAX_BYTE_TABLES} tables and of shorts when there are up to {@value #MAX_TABLES}, one more than the table's
+ * index so 0 is not seated. Each person's position in their table's occupant list is a short, so no more than
+ * {@value #MAX_TABLE_SIZE} people can sit at one table. The occupant lists are int arrays of people indexes.
+ *
+ * That is 7 or 8 bytes for each seating, plus the room left in the occupant lists, which grow by half again as they
+ * fill: 7 to 10 bytes in all, against the 28 of a triple and the list's reference to it. There is also an int for each
+ * course and table, the occupant lists' own headers and where the hosts sit, kept by {@link HostSeatings}. For 50,000
+ * people at 5,000 tables over 6 courses a copy is around 4 MB. Nothing is kept for each pair of people, unlike the int
+ * array solution's people x people matrix, and nothing grows with the people times the tables, unlike the bitset
+ * solution.
+ *
+ * The cost is that the people met aren't counted as people are seated. Whether two people sat together on an earlier
+ * course is a look back over the courses at the tables each of them sat at, so the number of different people a person
+ * meets takes the courses squared times the table size rather than a counter read. That is still small for the few
+ * courses and tables of up to a few tens of people of an event, and finding, counting, swapping and moving don't
+ * allocate.
+ *
+ * Like the other array based solutions, a Zobrist hash of the seatings is kept up to date as people are seated and
+ * moved, and changes are written to a journal of ints while they are being recorded so they can be undone in place.
+ */
+public class CompactSolution implements Solution {
+
+    /* marks an id that is not part of the scenario or a person not seated on a course */
+    private static final int NONE = ScenarioIndex.NONE;
+
+    private static final int INITIAL_TABLE_CAPACITY = 4;
+
+    public static final int MAX_BYTE_TABLES = 0xFF;
+
+    public static final int MAX_TABLES = 0xFFFF;
+
+    public static final int MAX_TABLE_SIZE = 0x10000;
+
+    /* the scenario, these never change so are shared between copies */
+    private final ScenarioIndex index;
+    private final Person[] people;
+    private final Course[] courses;
+    private final Table[] tables;
+
+    /* person x course -> table index + 1, only one of the two is used depending on the number of tables */
+    private final byte[] byteTableByPersonAndCourse;
+    private final short[] shortTableByPersonAndCourse;
+
+    /* person x course -> position of the person in the table's occupant list */
+    private final short[] seatByPersonAndCourse;
+
+    /* course x table -> people indexes sat at the table */
+    private final int[][] occupantsByCourseAndTable;
+
+    /* course x table -> how many people are sat at the table */
+    private final int[] countByCourseAndTable;
+
+    /* where the hosts sit */
+    private final HostSeatings hostSeatings;
+
+    /* swaps and moves made since changes began */
+    private final ChangeJournal changes = new ChangeJournal();
+
+    /* Zobrist hash of the seatings */
+    private long hash;
+
+    /**
+     * @param scenario
+     *            the scenario to seat
+     * @throws IllegalArgumentException
+     *             if the scenario has more than {@value #MAX_TABLES} tables
+     */
+    public CompactSolution(Scenario scenario) {
+        this.index = ScenarioIndex.of(scenario);
+        this.people = index.people;
+        this.courses = index.courses;
+        this.tables = index.tables;
+        if (tables.length > MAX_TABLES) {
+            throw new IllegalArgumentException(
+                    "Scenario has " + tables.length + " tables, at most " + MAX_TABLES + " are supported");
+        }
+
+        int seatings = people.length * courses.length;
+        this.byteTableByPersonAndCourse = (tables.length <= MAX_BYTE_TABLES) ? new byte[seatings] : null;
+        this.shortTableByPersonAndCourse = (tables.length <= MAX_BYTE_TABLES) ? null : new short[seatings];
+        this.seatByPersonAndCourse = new short[seatings];
+        this.occupantsByCourseAndTable = new int[courses.length * tables.length][INITIAL_TABLE_CAPACITY];
+        this.countByCourseAndTable = new int[courses.length * tables.length];
+        this.hostSeatings = new HostSeatings(index);
+    }
+
+    private CompactSolution(CompactSolution orig) {
+        this.index = orig.index;
+        this.people = orig.people;
+        this.courses = orig.courses;
+        this.tables = orig.tables;
+
+        this.byteTableByPersonAndCourse = (orig.byteTableByPersonAndCourse == null) ? null
+                : orig.byteTableByPersonAndCourse.clone();
+        this.shortTableByPersonAndCourse = (orig.shortTableByPersonAndCourse == null) ? null
+                : orig.shortTableByPersonAndCourse.clone();
+        this.seatByPersonAndCourse = orig.seatByPersonAndCourse.clone();
+        this.occupantsByCourseAndTable = new int[orig.occupantsByCourseAndTable.length][];
+        for (int i = 0; i < occupantsByCourseAndTable.length; i++) {
+            occupantsByCourseAndTable[i] = orig.occupantsByCourseAndTable[i].clone();
+        }
+        this.countByCourseAndTable = orig.countByCourseAndTable.clone();
+        this.hostSeatings = new HostSeatings(orig.hostSeatings);
+        this.hash = orig.hash;
+    }
+
+    @Override
+    public Solution copy() {
+        return new CompactSolution(this);
+    }
+
+    /* the table index a person sits at on a course, or NONE */
+    private int table(int pc) {
+        return (byteTableByPersonAndCourse != null) ? (byteTableByPersonAndCourse[pc] & 0xFF) - 1
+                : (shortTableByPersonAndCourse[pc] & 0xFFFF) - 1;
+    }
+
+    private void setTable(int pc, int t) {
+        if (byteTableByPersonAndCourse != null) {
+            byteTableByPersonAndCourse[pc] = (byte) (t + 1);
+        } else {
+            shortTableByPersonAndCourse[pc] = (short) (t + 1);
+        }
+    }
+
+    private int seat(int pc) {
+        return seatByPersonAndCourse[pc] & 0xFFFF;
+    }
+
+    @Override
+    public void addSeating(Person person, Course course, Table table) {
+        int p = index.requireIndex(index.personIndex(person), person);
+        int c = index.requireIndex(index.courseIndex(course), course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        if (table(p * courses.length + c) != NONE) {
+            unseat(p, c);
+        }
+        seat(p, c, t);
+    }
+
+    /* add a person to the end of a table's occupant list */
+    private void seat(int p, int c, int t) {
+        int ct = c * tables.length + t;
+        int[] occupants = occupantsByCourseAndTable[ct];
+        int count = countByCourseAndTable[ct];
+        if (count == MAX_TABLE_SIZE) {
+            throw new IllegalStateException("At most " + MAX_TABLE_SIZE + " people can sit at " + tables[t]);
+        }
+        if (count == occupants.length) {
+            occupants = Arrays.copyOf(occupants, Math.min(MAX_TABLE_SIZE, occupants.length + occupants.length / 2));
+            occupantsByCourseAndTable[ct] = occupants;
+        }
+        occupants[count] = p;
+        countByCourseAndTable[ct] = count + 1;
+        hostSeatings.seated(p, c, t);
+        setTable(p * courses.length + c, t);
+        seatByPersonAndCourse[p * courses.length + c] = (short) count;
+        hash ^= Zobrist.key(people[p], courses[c], tables[t]);
+    }
+
+    /* remove a person from a table's occupant list by moving the last occupant into their seat */
+    private void unseat(int p, int c) {
+        int pc = p * courses.length + c;
+        int t = table(pc);
+        int ct = c * tables.length + t;
+        hash ^= Zobrist.key(people[p], courses[c], tables[t]);
+        int[] occupants = occupantsByCourseAndTable[ct];
+        int last = countByCourseAndTable[ct] - 1;
+        int seat = seat(pc);
+        int moved = occupants[last];
+        occupants[seat] = moved;
+        seatByPersonAndCourse[moved * courses.length + c] = (short) seat;
+        countByCourseAndTable[ct] = last;
+        hostSeatings.unseated(p, c, t);
+        setTable(pc, NONE);
+    }
+
+    @Override
+    public Iterable<Triple<Person, Course, Table>> findAllSeatings() {
+        List<Triple<Person, Course, Table>> seatings = new ArrayList<>();
+        for (int p = 0; p < people.length; p++) {
+            for (int c = 0; c < courses.length; c++) {
+                int t = table(p * courses.length + c);
+                if (t != NONE) {
+                    seatings.add(ImmutableTriple.of(people[p], courses[c], tables[t]));
+                }
+            }
+        }
+        return seatings;
+    }
+
+    private int tableIndexByPersonAndCourse(Person person, Course course) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        return (p == NONE || c == NONE) ? NONE : table(p * courses.length + c);
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public long countAllCourseTablesWithOneHost() {
+        return hostSeatings.countCourseTablesWithOneHost();
+    }
+
+    @Override
+    public long countAllHostsAtOneTable() {
+        return hostSeatings.countHostsAtOneTable();
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        long occupants = MemoryEstimate.ofReferences(occupantsByCourseAndTable.length);
+        for (int[] tableOccupants : occupantsByCourseAndTable) {
+            occupants += MemoryEstimate.ofInts(tableOccupants.length);
+        }
+        long tableBytes = (byteTableByPersonAndCourse != null)
+                ? MemoryEstimate.ofBytes(byteTableByPersonAndCourse.length)
+                : MemoryEstimate.ofShorts(shortTableByPersonAndCourse.length);
+        return tableBytes + MemoryEstimate.ofShorts(seatByPersonAndCourse.length) + occupants
+                + MemoryEstimate.ofInts(countByCourseAndTable.length) + hostSeatings.estimateMemoryBytes();
+    }
+
+    @Override
+    public Optional<Table> findTableByPersonAndCourse(Person person, Course course) {
+        int t = tableIndexByPersonAndCourse(person, course);
+        return (t == NONE) ? Optional.empty() : index.tableOptionals[t];
+    }
+
+    @Override
+    public long countAllPeopleByHostAndCourseAndTable(boolean host, Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int hosts = hostSeatings.countHosts(c, t);
+        return host ? hosts : countByCourseAndTable[c * tables.length + t] - hosts;
+    }
+
+    @Override
+    public long countAllDistinctTablesByPerson(Person person) {
+        int p = index.personIndex(person);
+        if (p == NONE) {
+            return 0;
+        }
+        int base = p * courses.length;
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            if (isFirstSeatingAtTable(base, c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* true if the person sat at a table on this course and not on any earlier course */
+    private boolean isFirstSeatingAtTable(int base, int c) {
+        int t = table(base + c);
+        if (t == NONE) {
+            return false;
+        }
+        for (int prev = 0; prev < c; prev++) {
+            if (table(base + prev) == t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterable<Table> findAllDistinctTablesByPerson(Person person) {
+        List<Table> distinctTables = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            int base = p * courses.length;
+            for (int c = 0; c < courses.length; c++) {
+                if (isFirstSeatingAtTable(base, c)) {
+                    distinctTables.add(tables[table(base + c)]);
+                }
+            }
+        }
+        return distinctTables;
+    }
+
+    /* true if two people sat at the same table on a course before this one */
+    private boolean metBefore(int p, int q, int c) {
+        int base1 = p * courses.length;
+        int base2 = q * courses.length;
+        for (int prev = 0; prev < c; prev++) {
+            int t = table(base1 + prev);
+            if (t != NONE && t == table(base2 + prev)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* each person met is counted on the first course they sit together */
+    private int countDistinctPeopleMet(int p, List<Person> peopleMet) {
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            int t = table(p * courses.length + c);
+            if (t == NONE) {
+                continue;
+            }
+            int ct = c * tables.length + t;
+            int[] occupants = occupantsByCourseAndTable[ct];
+            for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+                int q = occupants[i];
+                if (q != p && !metBefore(p, q, c)) {
+                    count++;
+                    if (peopleMet != null) {
+                        peopleMet.add(people[q]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Person> findAllDistinctPeopleMetByPerson(Person person) {
+        List<Person> peopleMet = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            countDistinctPeopleMet(p, peopleMet);
+        }
+        return peopleMet;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByPerson(Person person) {
+        int p = index.personIndex(person);
+        return (p == NONE) ? 0 : countDistinctPeopleMet(p, null);
+    }
+
+    @Override
+    public long countAllCoursesTogetherByPeople(Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        if (p1 == NONE || p2 == NONE || p1 == p2) {
+            return 0;
+        }
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            int t = table(p1 * courses.length + c);
+            if (t != NONE && t == table(p2 * courses.length + c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Person> findAllPeopleByCourseAndTable(Course course, Table table) {
+        List<Person> seated = new ArrayList<>();
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c != NONE && t != NONE) {
+            int ct = c * tables.length + t;
+            int[] occupants = occupantsByCourseAndTable[ct];
+            for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+                seated.add(people[occupants[i]]);
+            }
+        }
+        return seated;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int ct = c * tables.length + t;
+        int[] occupants = occupantsByCourseAndTable[ct];
+        long total = 0;
+        for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+            total += countDistinctPeopleMet(occupants[i], null);
+        }
+        return total;
+    }
+
+    @Override
+    public Optional<Person> findPersonByTableAndHost(Table table, boolean host) {
+        int t = index.tableIndex(table);
+        if (t != NONE) {
+            for (int c = 0; c < courses.length; c++) {
+                int ct = c * tables.length + t;
+                int[] occupants = occupantsByCourseAndTable[ct];
+                for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+                    if (people[occupants[i]].isHost() == host) {
+                        return Optional.of(people[occupants[i]]);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public long countAllPeopleByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        return (c == NONE || t == NONE) ? 0 : countByCourseAndTable[c * tables.length + t];
+    }
+
+    @Override
+    public void swapPeopleOnCourse(Course course, Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        int c = index.courseIndex(course);
+        if (p1 == NONE || p2 == NONE || c == NONE) {
+            return;
+        }
+        int t1 = table(p1 * courses.length + c);
+        int t2 = table(p2 * courses.length + c);
+        if (t1 == NONE || t2 == NONE || t1 == t2) {
+            return;
+        }
+        changes.record(ChangeJournal.SWAP, c, p1, p2);
+        swap(p1, p2, c);
+    }
+
+    private void swap(int p1, int p2, int c) {
+        int pc1 = p1 * courses.length + c;
+        int pc2 = p2 * courses.length + c;
+        int t1 = table(pc1);
+        int t2 = table(pc2);
+        /* each takes the other's seat so the occupant lists keep their size */
+        short seat1 = seatByPersonAndCourse[pc1];
+        short seat2 = seatByPersonAndCourse[pc2];
+        occupantsByCourseAndTable[c * tables.length + t1][seat(pc1)] = p2;
+        occupantsByCourseAndTable[c * tables.length + t2][seat(pc2)] = p1;
+        setTable(pc1, t2);
+        seatByPersonAndCourse[pc1] = seat2;
+        setTable(pc2, t1);
+        seatByPersonAndCourse[pc2] = seat1;
+        hostSeatings.moved(p1, c, t1, t2);
+        hostSeatings.moved(p2, c, t2, t1);
+        hash ^= Zobrist.key(people[p1], courses[c], tables[t1]) ^ Zobrist.key(people[p1], courses[c], tables[t2])
+                ^ Zobrist.key(people[p2], courses[c], tables[t2]) ^ Zobrist.key(people[p2], courses[c], tables[t1]);
+    }
+
+    @Override
+    public void movePersonOnCourseToTable(Person person, Course course, Table table) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        if (p == NONE || c == NONE || table(p * courses.length + c) == NONE) {
+            return;
+        }
+        changes.record(ChangeJournal.MOVE, c, p, table(p * courses.length + c));
+        unseat(p, c);
+        seat(p, c, t);
+    }
+
+    @Override
+    public void beginChanges() {
+        changes.begin();
+    }
+
+    @Override
+    public void commitChanges() {
+        changes.end();
+    }
+
+    @Override
+    public void rollbackChanges() {
+        /* undo the most recent change first */
+        for (int entry = changes.size() - 1; entry >= 0; entry--) {
+            int c = changes.course(entry);
+            if (changes.kind(entry) == ChangeJournal.SWAP) {
+                swap(changes.value1(entry), changes.value2(entry), c);
+            } else {
+                unseat(changes.value1(entry), c);
+                seat(changes.value1(entry), c, changes.value2(entry));
+            }
+        }
+        changes.end();
+    }
+}
@@ -0,0 +1,132 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.Arrays;
+
+/**
+ * Where the hosts of an array based solution sit, kept up to date as people are seated, moved and unseated so whether
+ * every table has one host on every course, and every host stays at one table, is two counter reads rather than a
+ * count of the hosts at every table on every course.
+ *
+ * The hosts at each table on each course and the table each host sits at on each course are held in int arrays
+ * indexed as the solution's are, so they grow with the tables and the hosts but not with both at once. Seating or
+ * moving someone who isn't a host is a single lookup, and seating or moving a host looks back over their courses.
+ */
+final class HostSeatings {
+
+    private static final int NONE = ScenarioIndex.NONE;
+
+    /* person -> host index, shared between copies */
+    private final int[] hostIndexByPerson;
+
+    private final int numberOfCourses;
+
+    private final int numberOfTables;
+
+    /* course x table -> how many hosts are sat at the table */
+    private final int[] hostsByCourseAndTable;
+
+    /* host x course -> table index */
+    private final int[] tableByHostAndCourse;
+
+    /* host -> how many different tables the host sits at */
+    private final int[] tablesByHost;
+
+    private int courseTablesWithOneHost;
+
+    private int hostsAtOneTable;
+
+    HostSeatings(ScenarioIndex index) {
+        this.hostIndexByPerson = index.hostIndexByPerson;
+        this.numberOfCourses = index.courses.length;
+        this.numberOfTables = index.tables.length;
+        this.hostsByCourseAndTable = new int[numberOfCourses * numberOfTables];
+        this.tableByHostAndCourse = new int[index.numberOfHosts * numberOfCourses];
+        Arrays.fill(tableByHostAndCourse, NONE);
+        this.tablesByHost = new int[index.numberOfHosts];
+    }
+
+    HostSeatings(HostSeatings orig) {
+        this.hostIndexByPerson = orig.hostIndexByPerson;
+        this.numberOfCourses = orig.numberOfCourses;
+        this.numberOfTables = orig.numberOfTables;
+        this.hostsByCourseAndTable = orig.hostsByCourseAndTable.clone();
+        this.tableByHostAndCourse = orig.tableByHostAndCourse.clone();
+        this.tablesByHost = orig.tablesByHost.clone();
+        this.courseTablesWithOneHost = orig.courseTablesWithOneHost;
+        this.hostsAtOneTable = orig.hostsAtOneTable;
+    }
+
+    void seated(int p, int c, int t) {
+        int h = hostIndexByPerson[p];
+        if (h != NONE) {
+            changeHosts(c, t, 1);
+            sit(h, c, t);
+        }
+    }
+
+    void unseated(int p, int c, int t) {
+        int h = hostIndexByPerson[p];
+        if (h != NONE) {
+            changeHosts(c, t, -1);
+            sit(h, c, NONE);
+        }
+    }
+
+    void moved(int p, int c, int fromTable, int toTable) {
+        int h = hostIndexByPerson[p];
+        if (h != NONE) {
+            changeHosts(c, fromTable, -1);
+            changeHosts(c, toTable, 1);
+            sit(h, c, toTable);
+        }
+    }
+
+    private void changeHosts(int c, int t, int delta) {
+        int ct = c * numberOfTables + t;
+        courseTablesWithOneHost -= (hostsByCourseAndTable[ct] == 1) ? 1 : 0;
+        hostsByCourseAndTable[ct] += delta;
+        courseTablesWithOneHost += (hostsByCourseAndTable[ct] == 1) ? 1 : 0;
+    }
+
+    /* seat a host, or NONE to unseat them, and count the different tables they now sit at */
+    private void sit(int h, int c, int t) {
+        int base = h * numberOfCourses;
+        tableByHostAndCourse[base + c] = t;
+        int distinct = 0;
+        for (int course = 0; course < numberOfCourses; course++) {
+            int table = tableByHostAndCourse[base + course];
+            if (table != NONE && isFirstCourseAtTable(base, course, table)) {
+                distinct++;
+            }
+        }
+        hostsAtOneTable += ((distinct == 1) ? 1 : 0) - ((tablesByHost[h] == 1) ? 1 : 0);
+        tablesByHost[h] = distinct;
+    }
+
+    private boolean isFirstCourseAtTable(int base, int course, int table) {
+        for (int prev = 0; prev < course; prev++) {
+            if (tableByHostAndCourse[base + prev] == table) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int countHosts(int c, int t) {
+        return hostsByCourseAndTable[c * numberOfTables + t];
+    }
+
+    int countCourseTablesWithOneHost() {
+        return courseTablesWithOneHost;
+    }
+
+    int countHostsAtOneTable() {
+        return hostsAtOneTable;
+    }
+
+    /* roughly how many bytes the copies of these arrays take */
+    long estimateMemoryBytes() {
+        return MemoryEstimate.ofInts(hostsByCourseAndTable.length) + MemoryEstimate.ofInts(tableByHostAndCourse.length)
+                + MemoryEstimate.ofInts(tablesByHost.length);
+    }
+}
@@ -0,0 +1,198 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * A scenario that can't be changed once built, with everything a strategy asks of a scenario worked out up front.
+ *
+ * The people, courses and tables are held in arrays and each has a dense index, its position in the scenario starting
+ * at 0, found from its id with an array lookup rather than {@code equals} and {@code hashCode}. The hosts and the
+ * other people are split once so finding them returns the same list every time, and every count is a field read.
+ *
+ * The array based solutions share this scenario's index rather than each building their own, so a new solution for
+ * it doesn't need to index the scenario again. The pairs who must or mustn't sit together are compiled into
+ * {@link SeatingConstraints} once here too.
+ *
+ * The ids are expected to be small non-negative integers with no two people, courses or tables sharing one, as they
+ * are when created by the seating plan.
+ */
+public final class IndexedScenario implements Scenario {
+
+    /* marks a person, course or table that is not part of the scenario */
+    public static final int NONE = ScenarioIndex.NONE;
+
+    private final ScenarioIndex index;
+
+    private final List<Person> people;
+
+    private final List<Course> courses;
+
+    private final List<Table> tables;
+
+    private final List<Person> hosts;
+
+    private final List<Person> nonHosts;
+
+    private final List<Pair<Person, Person>> mustSitTogether;
+
+    private final List<Pair<Person, Person>> neverSitTogether;
+
+    private final SeatingConstraints constraints;
+
+    /**
+     * Index a scenario, which can go on to be changed without changing this one.
+     *
+     * @param scenario
+     *            the people, courses and tables to index
+     * @throws IllegalArgumentException
+     *             if any of the ids are negative or shared, or a pair who must or mustn't sit together aren't people
+     *             in the scenario
+     */
+    public IndexedScenario(Scenario scenario) {
+        this.index = new ScenarioIndex(scenario);
+        this.people = Collections.unmodifiableList(Arrays.asList(index.people));
+        this.courses = Collections.unmodifiableList(Arrays.asList(index.courses));
+        this.tables = Collections.unmodifiableList(Arrays.asList(index.tables));
+
+        List<Person> hosts = new ArrayList<>();
+        List<Person> nonHosts = new ArrayList<>();
+        for (Person person : index.people) {
+            (person.isHost() ? hosts : nonHosts).add(person);
+        }
+        this.hosts = Collections.unmodifiableList(hosts);
+        this.nonHosts = Collections.unmodifiableList(nonHosts);
+
+        this.mustSitTogether = Collections.unmodifiableList(IterableUtils.toList(scenario.findAllMustSitTogether()));
+        this.neverSitTogether = Collections
+                .unmodifiableList(IterableUtils.toList(scenario.findAllNeverSitTogether()));
+        this.constraints = new SeatingConstraints(this, index);
+    }
+
+    ScenarioIndex getIndex() {
+        return index;
+    }
+
+    SeatingConstraints getConstraints() {
+        return constraints;
+    }
+
+    @Override
+    public void addCourse(Course course) {
+        throw new UnsupportedOperationException("An indexed scenario can't be changed");
+    }
+
+    @Override
+    public long countAllCourses() {
+        return courses.size();
+    }
+
+    @Override
+    public List<Course> findAllCourses() {
+        return courses;
+    }
+
+    @Override
+    public void addTable(Table table) {
+        throw new UnsupportedOperationException("An indexed scenario can't be changed");
+    }
+
+    @Override
+    public long countAllTables() {
+        return tables.size();
+    }
+
+    @Override
+    public List<Table> findAllTables() {
+        return tables;
+    }
+
+    @Override
+    public void addPerson(Person person) {
+        throw new UnsupportedOperationException("An indexed scenario can't be changed");
+    }
+
+    @Override
+    public long countAllPeople() {
+        return people.size();
+    }
+
+    @Override
+    public List<Person> findAllPeople() {
+        return people;
+    }
+
+    @Override
+    public List<Person> findAllPeopleByHost(boolean host) {
+        return host ? hosts : nonHosts;
+    }
+
+    @Override
+    public long countAllPeopleByHost(boolean host) {
+        return host ? hosts.size() : nonHosts.size();
+    }
+
+    @Override
+    public void addMustSitTogether(Person person1, Person person2) {
+        throw new UnsupportedOperationException("An indexed scenario can't be changed");
+    }
+
+    @Override
+    public List<Pair<Person, Person>> findAllMustSitTogether() {
+        return mustSitTogether;
+    }
+
+    @Override
+    public void addNeverSitTogether(Person person1, Person person2) {
+        throw new UnsupportedOperationException("An indexed scenario can't be changed");
+    }
+
+    @Override
+    public List<Pair<Person, Person>> findAllNeverSitTogether() {
+        return neverSitTogether;
+    }
+
+    /**
+     * @param person
+     *            the person
+     * @return the person's position in the scenario or {@link #NONE} if they aren't part of it
+     */
+    public int indexOf(Person person) {
+        return index.personIndex(person);
+    }
+
+    /**
+     * @param course
+     *            the course
+     * @return the course's position in the scenario or {@link #NONE} if it isn't part of it
+     */
+    public int indexOf(Course course) {
+        return index.courseIndex(course);
+    }
+
+    /**
+     * @param table
+     *            the table
+     * @return the table's position in the scenario or {@link #NONE} if it isn't part of it
+     */
+    public int indexOf(Table table) {
+        return index.tableIndex(table);
+    }
+
+    public Person getPerson(int personIndex) {
+        return index.people[personIndex];
+    }
+
+    public Course getCourse(int courseIndex) {
+        return index.courses[courseIndex];
+    }
+
+    public Table getTable(int tableIndex) {
+        return index.tables[tableIndex];
+    }
+}
@@ -0,0 +1,473 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
+/**
+ * A solution backed by dense int arrays rather than a list of triples.
+ *
+ * People, courses and tables are indexed by their position in the scenario. The table each person sits at on each
+ * course is held in a person x course array and the people sat at each table on each course are held in course x table
+ * occupant lists, along with occupancy counters. Lookups and moves are then O(1) or O(table size) instead of a scan of
+ * every seating.
+ *
+ * How many courses each pair of people sit together for is kept in a people x people matrix of byte counters, along
+ * with how many distinct people each person meets, and both are updated as people are seated, swapped or moved. This
+ * makes the number of distinct people met a counter read rather than building a set of everyone sat with. The
+ * counters limit a scenario to {@value #MAX_COURSES} courses and the matrix to {@value #MAX_PEOPLE} people, though
+ * it takes a byte for each pair so {@link CompactSolution} is better for very large events.
+ *
+ * A Zobrist hash of the seatings is updated as people are seated and unseated, so every swap and move keeps it up to
+ * date. Where the hosts sit is kept in the same way by {@link HostSeatings}, which also counts the hosts at each
+ * table.
+ *
+ * While changes are being recorded each swap or move is written to a journal of ints so it can be undone in place,
+ * the journal is reused so recording changes doesn't allocate once it has grown to the size needed. Finding a
+ * person's table, the counts, swaps and moves don't allocate either, so a strategy can keep changing and scoring a
+ * solution without creating garbage. Only the methods returning a list of people or tables allocate.
+ *
+ * The ids of people, courses and tables are used to find their index so are expected to be small non-negative
+ * integers, as they are when created by the seating plan.
+ */
+public class IntArraySolution implements Solution {
+
+    /* marks an id that is not part of the scenario or a person not seated on a course */
+    private static final int NONE = ScenarioIndex.NONE;
+
+    private static final int INITIAL_TABLE_CAPACITY = 8;
+
+    public static final int MAX_COURSES = Byte.MAX_VALUE;
+
+    /* the most people whose people x people matrix fits in an array */
+    public static final int MAX_PEOPLE = 46340;
+
+    /* the scenario, these never change so are shared between copies */
+    private final ScenarioIndex index;
+    private final Person[] people;
+    private final Course[] courses;
+    private final Table[] tables;
+
+    /* person x course -> table index */
+    private final int[] tableByPersonAndCourse;
+
+    /* person x course -> position of the person in the table's occupant list */
+    private final int[] seatByPersonAndCourse;
+
+    /* course x table -> people indexes sat at the table */
+    private final int[][] occupantsByCourseAndTable;
+
+    /* course x table -> how many people are sat at the table */
+    private final int[] countByCourseAndTable;
+
+    /* where the hosts sit */
+    private final HostSeatings hostSeatings;
+
+    /* person x person -> number of courses the two sit together */
+    private final byte[] meetingsByPeople;
+
+    /* person -> number of different people sat with */
+    private final int[] distinctPeopleMetByPerson;
+
+    /* swaps and moves made since changes began */
+    private final ChangeJournal changes = new ChangeJournal();
+
+    /* Zobrist hash of the seatings */
+    private long hash;
+
+    public IntArraySolution(Scenario scenario) {
+        this.index = ScenarioIndex.of(scenario);
+        this.people = index.people;
+        this.courses = index.courses;
+        this.tables = index.tables;
+        if (courses.length > MAX_COURSES) {
+            throw new IllegalArgumentException(
+                    "Scenario has " + courses.length + " courses, at most " + MAX_COURSES + " are supported");
+        }
+        if (people.length > MAX_PEOPLE) {
+            throw new IllegalArgumentException(
+                    "Scenario has " + people.length + " people, at most " + MAX_PEOPLE + " are supported");
+        }
+
+        this.tableByPersonAndCourse = new int[people.length * courses.length];
+        Arrays.fill(tableByPersonAndCourse, NONE);
+        this.seatByPersonAndCourse = new int[people.length * courses.length];
+        this.occupantsByCourseAndTable = new int[courses.length * tables.length][INITIAL_TABLE_CAPACITY];
+        this.countByCourseAndTable = new int[courses.length * tables.length];
+        this.hostSeatings = new HostSeatings(index);
+        this.meetingsByPeople = new byte[people.length * people.length];
+        this.distinctPeopleMetByPerson = new int[people.length];
+    }
+
+    private IntArraySolution(IntArraySolution orig) {
+        this.index = orig.index;
+        this.people = orig.people;
+        this.courses = orig.courses;
+        this.tables = orig.tables;
+
+        this.tableByPersonAndCourse = orig.tableByPersonAndCourse.clone();
+        this.seatByPersonAndCourse = orig.seatByPersonAndCourse.clone();
+        this.occupantsByCourseAndTable = new int[orig.occupantsByCourseAndTable.length][];
+        for (int i = 0; i < occupantsByCourseAndTable.length; i++) {
+            occupantsByCourseAndTable[i] = orig.occupantsByCourseAndTable[i].clone();
+        }
+        this.countByCourseAndTable = orig.countByCourseAndTable.clone();
+        this.hostSeatings = new HostSeatings(orig.hostSeatings);
+        this.meetingsByPeople = orig.meetingsByPeople.clone();
+        this.distinctPeopleMetByPerson = orig.distinctPeopleMetByPerson.clone();
+        this.hash = orig.hash;
+    }
+
+    @Override
+    public Solution copy() {
+        return new IntArraySolution(this);
+    }
+
+    @Override
+    public void addSeating(Person person, Course course, Table table) {
+        int p = index.requireIndex(index.personIndex(person), person);
+        int c = index.requireIndex(index.courseIndex(course), course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        if (tableByPersonAndCourse[p * courses.length + c] != NONE) {
+            unseat(p, c);
+        }
+        seat(p, c, t);
+    }
+
+    /* add a person to the end of a table's occupant list */
+    private void seat(int p, int c, int t) {
+        int ct = c * tables.length + t;
+        int[] occupants = occupantsByCourseAndTable[ct];
+        int count = countByCourseAndTable[ct];
+        if (count == occupants.length) {
+            occupants = Arrays.copyOf(occupants, occupants.length * 2);
+            occupantsByCourseAndTable[ct] = occupants;
+        }
+        occupants[count] = p;
+        countByCourseAndTable[ct] = count + 1;
+        hostSeatings.seated(p, c, t);
+        tableByPersonAndCourse[p * courses.length + c] = t;
+        seatByPersonAndCourse[p * courses.length + c] = count;
+        meetEveryoneAtTable(p, ct, 1);
+        hash ^= Zobrist.key(people[p], courses[c], tables[t]);
+    }
+
+    /* remove a person from a table's occupant list by moving the last occupant into their seat */
+    private void unseat(int p, int c) {
+        int pc = p * courses.length + c;
+        int ct = c * tables.length + tableByPersonAndCourse[pc];
+        hash ^= Zobrist.key(people[p], courses[c], tables[tableByPersonAndCourse[pc]]);
+        meetEveryoneAtTable(p, ct, -1);
+        int[] occupants = occupantsByCourseAndTable[ct];
+        int last = countByCourseAndTable[ct] - 1;
+        int seat = seatByPersonAndCourse[pc];
+        int moved = occupants[last];
+        occupants[seat] = moved;
+        seatByPersonAndCourse[moved * courses.length + c] = seat;
+        countByCourseAndTable[ct] = last;
+        hostSeatings.unseated(p, c, tableByPersonAndCourse[pc]);
+        tableByPersonAndCourse[pc] = NONE;
+    }
+
+    /* add or remove one meeting between a person and everyone else sat at a table */
+    private void meetEveryoneAtTable(int p, int ct, int delta) {
+        int[] occupants = occupantsByCourseAndTable[ct];
+        for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+            int q = occupants[i];
+            if (q != p) {
+                meet(p, q, delta);
+            }
+        }
+    }
+
+    private void meet(int p, int q, int delta) {
+        int before = meetingsByPeople[p * people.length + q];
+        int after = before + delta;
+        meetingsByPeople[p * people.length + q] = (byte) after;
+        meetingsByPeople[q * people.length + p] = (byte) after;
+        if (before == 0) {
+            distinctPeopleMetByPerson[p]++;
+            distinctPeopleMetByPerson[q]++;
+        } else if (after == 0) {
+            distinctPeopleMetByPerson[p]--;
+            distinctPeopleMetByPerson[q]--;
+        }
+    }
+
+    @Override
+    public Iterable<Triple<Person, Course, Table>> findAllSeatings() {
+        List<Triple<Person, Course, Table>> seatings = new ArrayList<>();
+        for (int p = 0; p < people.length; p++) {
+            for (int c = 0; c < courses.length; c++) {
+                int t = tableByPersonAndCourse[p * courses.length + c];
+                if (t != NONE) {
+                    seatings.add(ImmutableTriple.of(people[p], courses[c], tables[t]));
+                }
+            }
+        }
+        return seatings;
+    }
+
+    private int tableIndexByPersonAndCourse(Person person, Course course) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        return (p == NONE || c == NONE) ? NONE : tableByPersonAndCourse[p * courses.length + c];
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public long countAllCourseTablesWithOneHost() {
+        return hostSeatings.countCourseTablesWithOneHost();
+    }
+
+    @Override
+    public long countAllHostsAtOneTable() {
+        return hostSeatings.countHostsAtOneTable();
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        long occupants = MemoryEstimate.ofReferences(occupantsByCourseAndTable.length);
+        for (int[] tableOccupants : occupantsByCourseAndTable) {
+            occupants += MemoryEstimate.ofInts(tableOccupants.length);
+        }
+        return MemoryEstimate.ofInts(tableByPersonAndCourse.length)
+                + MemoryEstimate.ofInts(seatByPersonAndCourse.length) + occupants
+                + MemoryEstimate.ofInts(countByCourseAndTable.length) + hostSeatings.estimateMemoryBytes()
+                + MemoryEstimate.ofBytes(meetingsByPeople.length)
+                + MemoryEstimate.ofInts(distinctPeopleMetByPerson.length);
+    }
+
+    @Override
+    public Optional<Table> findTableByPersonAndCourse(Person person, Course course) {
+        int t = tableIndexByPersonAndCourse(person, course);
+        return (t == NONE) ? Optional.empty() : index.tableOptionals[t];
+    }
+
+    @Override
+    public long countAllPeopleByHostAndCourseAndTable(boolean host, Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int hosts = hostSeatings.countHosts(c, t);
+        return host ? hosts : countByCourseAndTable[c * tables.length + t] - hosts;
+    }
+
+    @Override
+    public long countAllDistinctTablesByPerson(Person person) {
+        int p = index.personIndex(person);
+        if (p == NONE) {
+            return 0;
+        }
+        int base = p * courses.length;
+        int count = 0;
+        for (int c = 0; c < courses.length; c++) {
+            if (isFirstSeatingAtTable(base, c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* true if the person sat at a table on this course and not on any earlier course */
+    private boolean isFirstSeatingAtTable(int base, int c) {
+        int t = tableByPersonAndCourse[base + c];
+        if (t == NONE) {
+            return false;
+        }
+        for (int prev = 0; prev < c; prev++) {
+            if (tableByPersonAndCourse[base + prev] == t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterable<Table> findAllDistinctTablesByPerson(Person person) {
+        List<Table> distinctTables = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            int base = p * courses.length;
+            for (int c = 0; c < courses.length; c++) {
+                if (isFirstSeatingAtTable(base, c)) {
+                    distinctTables.add(tables[tableByPersonAndCourse[base + c]]);
+                }
+            }
+        }
+        return distinctTables;
+    }
+
+    @Override
+    public Iterable<Person> findAllDistinctPeopleMetByPerson(Person person) {
+        List<Person> peopleMet = new ArrayList<>();
+        int p = index.personIndex(person);
+        if (p != NONE) {
+            for (int q = 0; q < people.length; q++) {
+                if (meetingsByPeople[p * people.length + q] > 0) {
+                    peopleMet.add(people[q]);
+                }
+            }
+        }
+        return peopleMet;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByPerson(Person person) {
+        int p = index.personIndex(person);
+        return (p == NONE) ? 0 : distinctPeopleMetByPerson[p];
+    }
+
+    @Override
+    public long countAllCoursesTogetherByPeople(Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        return (p1 == NONE || p2 == NONE) ? 0 : meetingsByPeople[p1 * people.length + p2];
+    }
+
+    @Override
+    public Iterable<Person> findAllPeopleByCourseAndTable(Course course, Table table) {
+        List<Person> seated = new ArrayList<>();
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c != NONE && t != NONE) {
+            int ct = c * tables.length + t;
+            int[] occupants = occupantsByCourseAndTable[ct];
+            for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+                seated.add(people[occupants[i]]);
+            }
+        }
+        return seated;
+    }
+
+    @Override
+    public long countAllDistinctPeopleMetByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        if (c == NONE || t == NONE) {
+            return 0;
+        }
+        int ct = c * tables.length + t;
+        int[] occupants = occupantsByCourseAndTable[ct];
+        long total = 0;
+        for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+            total += distinctPeopleMetByPerson[occupants[i]];
+        }
+        return total;
+    }
+
+    @Override
+    public Optional<Person> findPersonByTableAndHost(Table table, boolean host) {
+        int t = index.tableIndex(table);
+        if (t != NONE) {
+            for (int c = 0; c < courses.length; c++) {
+                int ct = c * tables.length + t;
+                int[] occupants = occupantsByCourseAndTable[ct];
+                for (int i = 0; i < countByCourseAndTable[ct]; i++) {
+                    if (people[occupants[i]].isHost() == host) {
+                        return Optional.of(people[occupants[i]]);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public long countAllPeopleByCourseAndTable(Course course, Table table) {
+        int c = index.courseIndex(course);
+        int t = index.tableIndex(table);
+        return (c == NONE || t == NONE) ? 0 : countByCourseAndTable[c * tables.length + t];
+    }
+
+    @Override
+    public void swapPeopleOnCourse(Course course, Person person1, Person person2) {
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        int c = index.courseIndex(course);
+        if (p1 == NONE || p2 == NONE || c == NONE) {
+            return;
+        }
+        int t1 = tableByPersonAndCourse[p1 * courses.length + c];
+        int t2 = tableByPersonAndCourse[p2 * courses.length + c];
+        if (t1 == NONE || t2 == NONE || t1 == t2) {
+            return;
+        }
+        changes.record(ChangeJournal.SWAP, c, p1, p2);
+        swap(p1, p2, c);
+    }
+
+    private void swap(int p1, int p2, int c) {
+        int pc1 = p1 * courses.length + c;
+        int pc2 = p2 * courses.length + c;
+        int ct1 = c * tables.length + tableByPersonAndCourse[pc1];
+        int ct2 = c * tables.length + tableByPersonAndCourse[pc2];
+        meetEveryoneAtTable(p1, ct1, -1);
+        meetEveryoneAtTable(p2, ct2, -1);
+        /* each takes the other's seat so the occupant lists keep their size */
+        int t1 = tableByPersonAndCourse[pc1];
+        int seat1 = seatByPersonAndCourse[pc1];
+        int seat2 = seatByPersonAndCourse[pc2];
+        occupantsByCourseAndTable[ct1][seat1] = p2;
+        occupantsByCourseAndTable[ct2][seat2] = p1;
+        tableByPersonAndCourse[pc1] = tableByPersonAndCourse[pc2];
+        seatByPersonAndCourse[pc1] = seat2;
+        tableByPersonAndCourse[pc2] = t1;
+        seatByPersonAndCourse[pc2] = seat1;
+        int t2 = tableByPersonAndCourse[pc1];
+        hostSeatings.moved(p1, c, t1, t2);
+        hostSeatings.moved(p2, c, t2, t1);
+        meetEveryoneAtTable(p1, ct2, 1);
+        meetEveryoneAtTable(p2, ct1, 1);
+        hash ^= Zobrist.key(people[p1], courses[c], tables[t1]) ^ Zobrist.key(people[p1], courses[c], tables[t2])
+                ^ Zobrist.key(people[p2], courses[c], tables[t2]) ^ Zobrist.key(people[p2], courses[c], tables[t1]);
+    }
+
+    @Override
+    public void movePersonOnCourseToTable(Person person, Course course, Table table) {
+        int p = index.personIndex(person);
+        int c = index.courseIndex(course);
+        int t = index.requireIndex(index.tableIndex(table), table);
+        if (p == NONE || c == NONE || tableByPersonAndCourse[p * courses.length + c] == NONE) {
+            return;
+        }
+        changes.record(ChangeJournal.MOVE, c, p, tableByPersonAndCourse[p * courses.length + c]);
+        unseat(p, c);
+        seat(p, c, t);
+    }
+
+    @Override
+    public void beginChanges() {
+        changes.begin();
+    }
+
+    @Override
+    public void commitChanges() {
+        changes.end();
+    }
+
+    @Override
+    public void rollbackChanges() {
+        /* undo the most recent change first */
+        for (int entry = changes.size() - 1; entry >= 0; entry--) {
+            int c = changes.course(entry);
+            if (changes.kind(entry) == ChangeJournal.SWAP) {
+                swap(changes.value1(entry), changes.value2(entry), c);
+            } else {
+                unseat(changes.value1(entry), c);
+                seat(changes.value1(entry), c, changes.value2(entry));
+            }
+        }
+        changes.end();
+    }
+}
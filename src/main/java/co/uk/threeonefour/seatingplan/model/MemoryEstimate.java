@@ -0,0 +1,49 @@
+package co.uk.threeonefour.seatingplan.model;
+
+/**
+ * Rough sizes of the arrays and objects a solution holds, for estimating how much heap a solution takes. They assume a
+ * 64 bit JVM with compressed references, as it has for heaps under 32 GB: a 16 byte array header, 12 byte object
+ * header, 4 byte references and everything rounded up to 8 bytes.
+ */
+final class MemoryEstimate {
+
+    static final int ARRAY_HEADER = 16;
+    static final int OBJECT_HEADER = 12;
+    static final int REFERENCE = 4;
+
+    private MemoryEstimate() {
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long ofArray(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    static long ofBytes(long length) {
+        return ofArray(length, Byte.BYTES);
+    }
+
+    static long ofShorts(long length) {
+        return ofArray(length, Short.BYTES);
+    }
+
+    static long ofInts(long length) {
+        return ofArray(length, Integer.BYTES);
+    }
+
+    static long ofLongs(long length) {
+        return ofArray(length, Long.BYTES);
+    }
+
+    static long ofReferences(long length) {
+        return ofArray(length, REFERENCE);
+    }
+
+    /* an object with the given number of reference fields */
+    static long ofObject(int references) {
+        return align(OBJECT_HEADER + references * REFERENCE);
+    }
+}
@@ -1,5 +1,7 @@
 package co.uk.threeonefour.seatingplan.model;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 public interface Scenario {
 
     void addCourse(Course course);
@@ -23,4 +25,28 @@ public interface Scenario {
     Iterable<Person> findAllPeopleByHost(boolean host);
 
     long countAllPeopleByHost(boolean host);
+
+    /**
+     * Two people who must sit at the same table on every course.
+     * 
+     * @param person1
+     *            one of the people
+     * @param person2
+     *            the other person
+     */
+    void addMustSitTogether(Person person1, Person person2);
+
+    Iterable<Pair<Person, Person>> findAllMustSitTogether();
+
+    /**
+     * Two people who must never sit at the same table.
+     * 
+     * @param person1
+     *            one of the people
+     * @param person2
+     *            the other person
+     */
+    void addNeverSitTogether(Person person1, Person person2);
+
+    Iterable<Pair<Person, Person>> findAllNeverSitTogether();
 }
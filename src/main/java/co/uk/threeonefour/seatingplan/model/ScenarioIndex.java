@@ -0,0 +1,108 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The people, courses and tables of a scenario held in arrays, with the index of each found from its id. This never
+ * changes so the array based solutions share one between all their copies, and between every solution for an
+ * {@link IndexedScenario}, which holds one already.
+ *
+ * The ids are used to find the index so are expected to be small non-negative integers, as they are when created by
+ * the seating plan.
+ */
+final class ScenarioIndex {
+
+    /* marks an id that is not part of the scenario */
+    static final int NONE = -1;
+
+    final Person[] people;
+    final Course[] courses;
+    final Table[] tables;
+
+    /* finding a table is in the strategies' inner loop so the optionals are made once rather than on every call */
+    final Optional<Table>[] tableOptionals;
+
+    /* person -> position among the hosts, or NONE if they aren't a host */
+    final int[] hostIndexByPerson;
+    final int numberOfHosts;
+
+    private final int[] personIndexById;
+    private final int[] courseIndexById;
+    private final int[] tableIndexById;
+
+    ScenarioIndex(Scenario scenario) {
+        this.people = toArray(scenario.findAllPeople(), new Person[0]);
+        this.courses = toArray(scenario.findAllCourses(), new Course[0]);
+        this.tables = toArray(scenario.findAllTables(), new Table[0]);
+        this.tableOptionals = toOptionals(tables);
+        this.hostIndexByPerson = new int[people.length];
+        int hosts = 0;
+        for (int p = 0; p < people.length; p++) {
+            hostIndexByPerson[p] = people[p].isHost() ? hosts++ : NONE;
+        }
+        this.numberOfHosts = hosts;
+        this.personIndexById = indexById(Arrays.stream(people).mapToInt(Person::getId).toArray());
+        this.courseIndexById = indexById(Arrays.stream(courses).mapToInt(Course::getId).toArray());
+        this.tableIndexById = indexById(Arrays.stream(tables).mapToInt(Table::getId).toArray());
+    }
+
+    /* the scenario's own index if it has one, otherwise a new one */
+    static ScenarioIndex of(Scenario scenario) {
+        return (scenario instanceof IndexedScenario) ? ((IndexedScenario) scenario).getIndex()
+                : new ScenarioIndex(scenario);
+    }
+
+    private static <T> T[] toArray(Iterable<T> iterable, T[] type) {
+        List<T> list = new ArrayList<>();
+        iterable.forEach(list::add);
+        return list.toArray(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<T>[] toOptionals(T[] values) {
+        Optional<T>[] optionals = (Optional<T>[]) new Optional<?>[values.length];
+        for (int i = 0; i < values.length; i++) {
+            optionals[i] = Optional.of(values[i]);
+        }
+        return optionals;
+    }
+
+    private static int[] indexById(int[] ids) {
+        int maxId = Arrays.stream(ids).max().orElse(0);
+        int[] indexById = new int[maxId + 1];
+        Arrays.fill(indexById, NONE);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0 || indexById[ids[i]] != NONE) {
+                throw new IllegalArgumentException("Id " + ids[i] + " is negative or used more than once");
+            }
+            indexById[ids[i]] = i;
+        }
+        return indexById;
+    }
+
+    private static int indexOf(int[] indexById, int id) {
+        return (id >= 0 && id < indexById.length) ? indexById[id] : NONE;
+    }
+
+    int personIndex(Person person) {
+        return indexOf(personIndexById, person.getId());
+    }
+
+    int courseIndex(Course course) {
+        return indexOf(courseIndexById, course.getId());
+    }
+
+    int tableIndex(Table table) {
+        return indexOf(tableIndexById, table.getId());
+    }
+
+    int requireIndex(int index, Object obj) {
+        if (index == NONE) {
+            throw new IllegalArgumentException(obj + " is not part of the scenario");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,294 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The pairs of people in a scenario who must sit at the same table on every course and the pairs who must never sit at
+ * the same table, compiled so a change to a solution can be checked against them before it is scored.
+ *
+ * Each person's partners, the people they must or mustn't sit with, are held as people indexes one after another in
+ * an int array, with where each person's partners start in another. Checking a person going to a table is then a
+ * look at where each of their partners sits, which takes as long as they have partners however many people there are,
+ * and doesn't allocate.
+ *
+ * A constraint is broken once for each course that a pair who must sit together are at different tables, or a pair
+ * who mustn't are at the same one. The changes in the number broken are worked out for just the people a swap or move
+ * changes, so a change that breaks more of them can be turned down without scoring it.
+ */
+public final class SeatingConstraints {
+
+    /* no one has a partner */
+    private static final SeatingConstraints NONE = new SeatingConstraints();
+
+    private final Person[] people;
+
+    private final Course[] courses;
+
+    private final ScenarioIndex index;
+
+    /* person -> where their partners start in the partner arrays, with one more entry for where the last ends */
+    private final int[] togetherStart;
+    private final int[] apartStart;
+
+    /* person indexes of each person's partners */
+    private final int[] together;
+    private final int[] apart;
+
+    private final int numberOfPairs;
+
+    private SeatingConstraints() {
+        this.people = new Person[0];
+        this.courses = new Course[0];
+        this.index = null;
+        this.togetherStart = new int[1];
+        this.apartStart = new int[1];
+        this.together = new int[0];
+        this.apart = new int[0];
+        this.numberOfPairs = 0;
+    }
+
+    SeatingConstraints(Scenario scenario, ScenarioIndex index) {
+        this.index = index;
+        this.people = index.people;
+        this.courses = index.courses;
+
+        List<List<Integer>> togetherPartners = partners(scenario.findAllMustSitTogether());
+        List<List<Integer>> apartPartners = partners(scenario.findAllNeverSitTogether());
+        this.togetherStart = starts(togetherPartners);
+        this.apartStart = starts(apartPartners);
+        this.together = flatten(togetherPartners, togetherStart);
+        this.apart = flatten(apartPartners, apartStart);
+        this.numberOfPairs = (together.length + apart.length) / 2;
+    }
+
+    /**
+     * @param scenario
+     *            the scenario
+     * @return the scenario's constraints, which an {@link IndexedScenario} has already compiled
+     */
+    public static SeatingConstraints of(Scenario scenario) {
+        if (scenario instanceof IndexedScenario) {
+            return ((IndexedScenario) scenario).getConstraints();
+        }
+        if (!scenario.findAllMustSitTogether().iterator().hasNext()
+                && !scenario.findAllNeverSitTogether().iterator().hasNext()) {
+            return NONE;
+        }
+        return new SeatingConstraints(scenario, new ScenarioIndex(scenario));
+    }
+
+    private List<List<Integer>> partners(Iterable<Pair<Person, Person>> pairs) {
+        List<List<Integer>> partners = new ArrayList<>();
+        for (int p = 0; p < people.length; p++) {
+            partners.add(new ArrayList<>());
+        }
+        for (Pair<Person, Person> pair : pairs) {
+            int p1 = index.requireIndex(index.personIndex(pair.getLeft()), pair.getLeft());
+            int p2 = index.requireIndex(index.personIndex(pair.getRight()), pair.getRight());
+            if (p1 == p2) {
+                throw new IllegalArgumentException(pair.getLeft() + " can't be paired with themself");
+            }
+            partners.get(p1).add(p2);
+            partners.get(p2).add(p1);
+        }
+        return partners;
+    }
+
+    private static int[] starts(List<List<Integer>> partners) {
+        int[] starts = new int[partners.size() + 1];
+        for (int p = 0; p < partners.size(); p++) {
+            starts[p + 1] = starts[p] + partners.get(p).size();
+        }
+        return starts;
+    }
+
+    private static int[] flatten(List<List<Integer>> partners, int[] starts) {
+        int[] flat = new int[starts[partners.size()]];
+        for (int p = 0; p < partners.size(); p++) {
+            for (int i = 0; i < partners.get(p).size(); i++) {
+                flat[starts[p] + i] = partners.get(p).get(i);
+            }
+        }
+        return flat;
+    }
+
+    /**
+     * @return true if there are no constraints, so nothing need be checked
+     */
+    public boolean isEmpty() {
+        return numberOfPairs == 0;
+    }
+
+    /**
+     * @param person
+     *            the person
+     * @return true if the person must or mustn't sit with someone
+     */
+    public boolean isConstrained(Person person) {
+        if (isEmpty()) {
+            return false;
+        }
+        int p = index.personIndex(person);
+        return p != ScenarioIndex.NONE
+                && (togetherStart[p + 1] > togetherStart[p] || apartStart[p + 1] > apartStart[p]);
+    }
+
+    /**
+     * How many constraints a solution breaks, each pair counted once for each course they break it on.
+     *
+     * @param solution
+     *            the solution
+     * @return the number broken, 0 if the solution keeps to them all
+     */
+    public int countAllBroken(Solution solution) {
+        if (isEmpty()) {
+            return 0;
+        }
+        int broken = 0;
+        for (Course course : courses) {
+            for (int p = 0; p < people.length; p++) {
+                Optional<Table> table = solution.findTableByPersonAndCourse(people[p], course);
+                if (!table.isPresent()) {
+                    continue;
+                }
+                /* each pair is seen from both sides so only counted from the lower index */
+                for (int i = togetherStart[p]; i < togetherStart[p + 1]; i++) {
+                    if (together[i] > p && !sitsAt(solution, together[i], course, table.get())) {
+                        broken++;
+                    }
+                }
+                for (int i = apartStart[p]; i < apartStart[p + 1]; i++) {
+                    if (apart[i] > p && sitsAt(solution, apart[i], course, table.get())) {
+                        broken++;
+                    }
+                }
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * How many constraints a person breaks on one course.
+     *
+     * @param solution
+     *            the solution
+     * @param course
+     *            the course
+     * @param person
+     *            the person
+     * @return the number of their partners they are wrongly with or without
+     */
+    public int countBrokenByPersonAndCourse(Solution solution, Course course, Person person) {
+        if (isEmpty()) {
+            return 0;
+        }
+        int p = index.personIndex(person);
+        Optional<Table> table = solution.findTableByPersonAndCourse(person, course);
+        if (p == ScenarioIndex.NONE || !table.isPresent()) {
+            return 0;
+        }
+        int broken = 0;
+        for (int i = togetherStart[p]; i < togetherStart[p + 1]; i++) {
+            if (!sitsAt(solution, together[i], course, table.get())) {
+                broken++;
+            }
+        }
+        for (int i = apartStart[p]; i < apartStart[p + 1]; i++) {
+            if (sitsAt(solution, apart[i], course, table.get())) {
+                broken++;
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * The change in how many constraints are broken if one person moves from one table to another for a course.
+     *
+     * @param solution
+     *            the solution before the move
+     * @param course
+     *            the course
+     * @param person
+     *            the person moving
+     * @param fromTable
+     *            the table they sit at
+     * @param toTable
+     *            the table they move to
+     * @return how many more are broken, negative if fewer are
+     */
+    public int countBrokenChangeByMove(Solution solution, Course course, Person person, Table fromTable,
+            Table toTable) {
+        if (isEmpty()) {
+            return 0;
+        }
+        return countBrokenChange(solution, course, index.personIndex(person), ScenarioIndex.NONE, fromTable, toTable);
+    }
+
+    /**
+     * The change in how many constraints are broken if two people at different tables swap for a course.
+     *
+     * @param solution
+     *            the solution before the swap
+     * @param course
+     *            the course
+     * @param person1
+     *            the person at the first table
+     * @param person2
+     *            the person at the second table
+     * @param table1
+     *            the first table
+     * @param table2
+     *            the second table
+     * @return how many more are broken, negative if fewer are
+     */
+    public int countBrokenChangeBySwap(Solution solution, Course course, Person person1, Person person2,
+            Table table1, Table table2) {
+        if (isEmpty()) {
+            return 0;
+        }
+        int p1 = index.personIndex(person1);
+        int p2 = index.personIndex(person2);
+        return countBrokenChange(solution, course, p1, p2, table1, table2)
+                + countBrokenChange(solution, course, p2, p1, table2, table1);
+    }
+
+    /*
+     * The change for one person going from one table to the other, ignoring the other person in a swap who is also
+     * changing tables, as the two of them are at different tables before and after
+     */
+    private int countBrokenChange(Solution solution, Course course, int p, int other, Table fromTable, Table toTable) {
+        int change = 0;
+        for (int i = togetherStart[p]; i < togetherStart[p + 1]; i++) {
+            int q = together[i];
+            if (q != other) {
+                Table partnerTable = solution.findTableByPersonAndCourse(people[q], course).orElse(null);
+                /* broken if they end up apart, mended if they were apart and end up together */
+                change += (toTable.equals(partnerTable) ? 0 : 1) - (fromTable.equals(partnerTable) ? 0 : 1);
+            }
+        }
+        for (int i = apartStart[p]; i < apartStart[p + 1]; i++) {
+            int q = apart[i];
+            if (q != other) {
+                Table partnerTable = solution.findTableByPersonAndCourse(people[q], course).orElse(null);
+                change += (toTable.equals(partnerTable) ? 1 : 0) - (fromTable.equals(partnerTable) ? 1 : 0);
+            }
+        }
+        return change;
+    }
+
+    private boolean sitsAt(Solution solution, int p, Course course, Table table) {
+        Optional<Table> partnerTable = solution.findTableByPersonAndCourse(people[p], course);
+        return partnerTable.isPresent() && partnerTable.get().equals(table);
+    }
+
+    /**
+     * @return how many pairs there are, of both kinds
+     */
+    public int countAllPairs() {
+        return numberOfPairs;
+    }
+}
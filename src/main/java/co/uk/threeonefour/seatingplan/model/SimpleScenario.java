@@ -5,6 +5,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
 public class SimpleScenario implements Scenario {
 
     private final List<Course> courses;
@@ -13,10 +16,16 @@ public class SimpleScenario implements Scenario {
 
     private final List<Person> people;
 
+    private final List<Pair<Person, Person>> mustSitTogether;
+
+    private final List<Pair<Person, Person>> neverSitTogether;
+
     public SimpleScenario() {
         this.courses = new ArrayList<>();
         this.tables = new ArrayList<>();
         this.people = new ArrayList<>();
+        this.mustSitTogether = new ArrayList<>();
+        this.neverSitTogether = new ArrayList<>();
     }
 
     @Override
@@ -73,4 +82,24 @@ public class SimpleScenario implements Scenario {
     public long countAllPeopleByHost(boolean host) {
         return people.stream().filter(p -> p.isHost() == host).count();
     }
+
+    @Override
+    public void addMustSitTogether(Person person1, Person person2) {
+        mustSitTogether.add(ImmutablePair.of(person1, person2));
+    }
+
+    @Override
+    public Iterable<Pair<Person, Person>> findAllMustSitTogether() {
+        return mustSitTogether;
+    }
+
+    @Override
+    public void addNeverSitTogether(Person person1, Person person2) {
+        neverSitTogether.add(ImmutablePair.of(person1, person2));
+    }
+
+    @Override
+    public Iterable<Pair<Person, Person>> findAllNeverSitTogether() {
+        return neverSitTogether;
+    }
 }
@@ -2,12 +2,56 @@ package co.uk.threeonefour.seatingplan.model;
 
 import java.util.Optional;
 
+import org.apache.commons.lang3.tuple.Triple;
+
 public interface Solution {
 
     Solution copy();
     
     void addSeating(Person host, Course course, Table table);
 
+    /**
+     * Every seating in the solution, in no particular order. Used to read a whole solution in one pass.
+     * 
+     * @return the person, course and table of each seating
+     */
+    Iterable<Triple<Person, Course, Table>> findAllSeatings();
+
+    /**
+     * A Zobrist hash of the seatings, the XOR of the {@link Zobrist#key(Person, Course, Table)} of each one. It is kept
+     * up to date as seatings are added, swapped and moved, including when changes are rolled back, so it costs
+     * nothing to read. Solutions with the same seatings have the same hash.
+     * 
+     * @return the hash
+     */
+    long getHash();
+
+    /**
+     * How many of the tables on each course have exactly one host sat at them, each course's tables counted
+     * separately. Like the hash it is kept up to date as seatings are added, swapped and moved so it costs nothing to
+     * read. Every table has one host on every course when it is the number of courses times the number of tables.
+     * 
+     * @return the number of course and table pairs with one host
+     */
+    long countAllCourseTablesWithOneHost();
+
+    /**
+     * How many hosts sit at just one table over all the courses, kept up to date in the same way. Every host stays at
+     * their own table when it is the number of hosts.
+     * 
+     * @return the number of hosts who sit at one table
+     */
+    long countAllHostsAtOneTable();
+
+    /**
+     * Roughly how many bytes of heap a copy of the solution takes, for its seatings and everything it keeps up to date
+     * from them. What is shared between copies, such as the scenario's people, courses and tables, isn't included, nor
+     * is anything only used while changes are being recorded.
+     *
+     * @return the estimated size in bytes
+     */
+    long estimateMemoryBytes();
+
     Optional<Table> findTableByPersonAndCourse(Person person, Course course);
 
     long countAllPeopleByHostAndCourseAndTable(boolean host, Course course, Table table);
@@ -17,9 +61,32 @@ public interface Solution {
     Iterable<Person> findAllDistinctPeopleMetByPerson(Person person);
     
     long countAllDistinctPeopleMetByPerson(Person person);
+
+    /**
+     * How many courses two different people sit at the same table for.
+     * 
+     * @param person1
+     *            one of the people
+     * @param person2
+     *            the other person
+     * @return the number of courses they sit together, 0 if they are the same person
+     */
+    long countAllCoursesTogetherByPeople(Person person1, Person person2);
     
     Iterable<Person> findAllPeopleByCourseAndTable(Course course, Table table);
 
+    /**
+     * Total of the number of different people each of the people sat at a table for a course sits with over all the
+     * courses.
+     * 
+     * @param course
+     *            the course
+     * @param table
+     *            the table
+     * @return the total, 0 if no one is sat there
+     */
+    long countAllDistinctPeopleMetByCourseAndTable(Course course, Table table);
+
     Optional<Person> findPersonByTableAndHost(Table table, boolean host);
     
     long countAllPeopleByCourseAndTable(Course course, Table table);
@@ -29,4 +96,20 @@ public interface Solution {
     void swapPeopleOnCourse(Course course, Person person1, Person person2);
 
     void movePersonOnCourseToTable(Person person, Course course, Table table);
+
+    /**
+     * Start recording swaps and moves so they can be undone in place rather than having to copy the solution before
+     * changing it. Any changes already being recorded are kept.
+     */
+    void beginChanges();
+
+    /**
+     * Keep the swaps and moves made since changes began and stop recording.
+     */
+    void commitChanges();
+
+    /**
+     * Undo the swaps and moves made since changes began, in reverse order, and stop recording.
+     */
+    void rollbackChanges();
 }
@@ -1,26 +1,62 @@
 package co.uk.threeonefour.seatingplan.model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.IterableUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
 public class TripleListSolution implements Solution {
 
     private final List<Triple<Person, Course, Table>> triples;
 
+    /* how to undo each swap and move made since changes began, most recent first */
+    private final Deque<Runnable> changes;
+
+    private boolean recordingChanges;
+
+    /* Zobrist hash of the triples */
+    private long hash;
+
+    /* course and table -> hosts sat at the table, and host and table -> courses sat at the table */
+    private final Map<Pair<Course, Table>, Integer> hostsByCourseAndTable;
+    private final Map<Pair<Person, Table>, Integer> coursesByHostAndTable;
+
+    /* host -> different tables sat at */
+    private final Map<Person, Integer> tablesByHost;
+
+    private long courseTablesWithOneHost;
+
+    private long hostsAtOneTable;
+
     public TripleListSolution() {
         this.triples = new ArrayList<>();
+        this.changes = new ArrayDeque<>();
+        this.hostsByCourseAndTable = new HashMap<>();
+        this.coursesByHostAndTable = new HashMap<>();
+        this.tablesByHost = new HashMap<>();
     }
 
     private TripleListSolution(TripleListSolution orig) {
         this.triples = new ArrayList<>(orig.triples);
+        this.changes = new ArrayDeque<>();
+        this.hash = orig.hash;
+        this.hostsByCourseAndTable = new HashMap<>(orig.hostsByCourseAndTable);
+        this.coursesByHostAndTable = new HashMap<>(orig.coursesByHostAndTable);
+        this.tablesByHost = new HashMap<>(orig.tablesByHost);
+        this.courseTablesWithOneHost = orig.courseTablesWithOneHost;
+        this.hostsAtOneTable = orig.hostsAtOneTable;
     }
 
     @Override
@@ -31,6 +67,61 @@ public class TripleListSolution implements Solution {
     @Override
     public void addSeating(Person person, Course course, Table table) {
         triples.add(ImmutableTriple.of(person, course, table));
+        hash ^= Zobrist.key(person, course, table);
+        changeHost(person, course, table, 1);
+    }
+
+    /* keep the counts of where the hosts sit up to date as a person sits at or leaves a table */
+    private void changeHost(Person person, Course course, Table table, int delta) {
+        if (!person.isHost()) {
+            return;
+        }
+        int hosts = hostsByCourseAndTable.merge(ImmutablePair.of(course, table), delta, Integer::sum);
+        courseTablesWithOneHost += ((hosts == 1) ? 1 : 0) - ((hosts - delta == 1) ? 1 : 0);
+
+        int coursesAtTable = coursesByHostAndTable.merge(ImmutablePair.of(person, table), delta, Integer::sum);
+        if (coursesAtTable == 0 || coursesAtTable - delta == 0) {
+            int tables = tablesByHost.merge(person, delta, Integer::sum);
+            hostsAtOneTable += ((tables == 1) ? 1 : 0) - ((tables - delta == 1) ? 1 : 0);
+        }
+    }
+
+    @Override
+    public Iterable<Triple<Person, Course, Table>> findAllSeatings() {
+        return new ArrayList<>(triples);
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public long countAllCourseTablesWithOneHost() {
+        return courseTablesWithOneHost;
+    }
+
+    @Override
+    public long countAllHostsAtOneTable() {
+        return hostsAtOneTable;
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        /* an object of three references for each seating, and the list's array of references to them */
+        long seatings = MemoryEstimate.ofReferences(triples.size()) + triples.size() * MemoryEstimate.ofObject(3);
+        /* the pairs keying the host counts are made for each entry, their values are small cached integers */
+        return seatings + estimateMapBytes(hostsByCourseAndTable.size(), MemoryEstimate.ofObject(2))
+                + estimateMapBytes(coursesByHostAndTable.size(), MemoryEstimate.ofObject(2))
+                + estimateMapBytes(tablesByHost.size(), 0);
+    }
+
+    /* a hash map's table of buckets, sized for its load factor, and an entry of a hash and three references for each */
+    private static long estimateMapBytes(int size, long keyBytes) {
+        int buckets = Integer.highestOneBit(Math.max(1, size * 4 / 3) * 2 - 1);
+        long entryBytes = MemoryEstimate
+                .align(MemoryEstimate.OBJECT_HEADER + Integer.BYTES + 3 * MemoryEstimate.REFERENCE);
+        return MemoryEstimate.ofReferences(buckets) + size * (entryBytes + keyBytes);
     }
 
     @Override
@@ -73,12 +164,31 @@ public class TripleListSolution implements Solution {
         return peopleMet.size();
     }
 
+    @Override
+    public long countAllCoursesTogetherByPeople(Person person1, Person person2) {
+        if (person1.equals(person2)) {
+            return 0;
+        }
+        return triples.stream().filter(triple1 -> triple1.getLeft().equals(person1))
+                .filter(triple1 -> triples.stream()
+                        .anyMatch(triple2 -> triple2.getLeft().equals(person2)
+                                && triple2.getMiddle().equals(triple1.getMiddle())
+                                && triple2.getRight().equals(triple1.getRight())))
+                .count();
+    }
+
     @Override
     public Iterable<Person> findAllPeopleByCourseAndTable(Course course, Table table) {
         return triples.stream().filter(triple -> triple.getMiddle().equals(course) && triple.getRight().equals(table))
                 .map(triple -> triple.getLeft()).collect(Collectors.toList());
     }
 
+    @Override
+    public long countAllDistinctPeopleMetByCourseAndTable(Course course, Table table) {
+        return triples.stream().filter(triple -> triple.getMiddle().equals(course) && triple.getRight().equals(table))
+                .mapToLong(triple -> countAllDistinctPeopleMetByPerson(triple.getLeft())).sum();
+    }
+
     @Override
     public long countAllPeopleByCourseAndTable(Course course, Table table) {
         return triples.stream().filter(triple -> triple.getMiddle().equals(course) && triple.getRight().equals(table))
@@ -100,6 +210,14 @@ public class TripleListSolution implements Solution {
 
     @Override
     public void swapPeopleOnCourse(Course course, Person person1, Person person2) {
+        if (recordingChanges) {
+            /* swapping the same people again puts them back */
+            changes.push(() -> swap(course, person1, person2));
+        }
+        swap(course, person1, person2);
+    }
+
+    private void swap(Course course, Person person1, Person person2) {
         Triple<Person, Course, Table> triple1 = triples.stream()
                 .filter(triple -> triple.getLeft().equals(person1) && triple.getMiddle().equals(course)).findFirst()
                 .orElse(null);
@@ -113,17 +231,54 @@ public class TripleListSolution implements Solution {
             /* add new entries with person swapped */
             triples.add(ImmutableTriple.of(triple2.getLeft(), triple1.getMiddle(), triple1.getRight()));
             triples.add(ImmutableTriple.of(triple1.getLeft(), triple2.getMiddle(), triple2.getRight()));
+            hash ^= Zobrist.key(person1, course, triple1.getRight()) ^ Zobrist.key(person1, course, triple2.getRight())
+                    ^ Zobrist.key(person2, course, triple2.getRight())
+                    ^ Zobrist.key(person2, course, triple1.getRight());
+            changeHost(person1, course, triple1.getRight(), -1);
+            changeHost(person2, course, triple2.getRight(), -1);
+            changeHost(person1, course, triple2.getRight(), 1);
+            changeHost(person2, course, triple1.getRight(), 1);
         }
     }
 
     @Override
     public void movePersonOnCourseToTable(Person person, Course course, Table table) {
+        if (recordingChanges) {
+            findTableByPersonAndCourse(person, course)
+                    .ifPresent(prevTable -> changes.push(() -> move(person, course, prevTable)));
+        }
+        move(person, course, table);
+    }
+
+    private void move(Person person, Course course, Table table) {
         triples.stream().filter(triple -> triple.getLeft().equals(person) && triple.getMiddle().equals(course))
                 .findFirst().ifPresent(triple -> {
                     /* remove old entry */
                     triples.remove(triple);
                     /* add new entry with table swapped */
                     triples.add(ImmutableTriple.of(triple.getLeft(), triple.getMiddle(), table));
+                    hash ^= Zobrist.key(person, course, triple.getRight()) ^ Zobrist.key(person, course, table);
+                    changeHost(person, course, triple.getRight(), -1);
+                    changeHost(person, course, table, 1);
                 });
     }
+
+    @Override
+    public void beginChanges() {
+        recordingChanges = true;
+    }
+
+    @Override
+    public void commitChanges() {
+        changes.clear();
+        recordingChanges = false;
+    }
+
+    @Override
+    public void rollbackChanges() {
+        while (!changes.isEmpty()) {
+            changes.pop().run();
+        }
+        recordingChanges = false;
+    }
 }
@@ -0,0 +1,40 @@
+package co.uk.threeonefour.seatingplan.model;
+
+/**
+ * Keys for a Zobrist hash of a solution's seatings. Each seating of a person at a table for a course has its own
+ * pseudo random key and a solution's hash is the XOR of the keys of all its seatings, so a swap or move updates the
+ * hash by XOR-ing out the keys of the seatings it removes and in the keys of the ones it adds, and undoing it puts the
+ * hash back.
+ *
+ * The keys are mixed from the ids rather than held in a table, so they take no memory and are the same for every
+ * solution model. Solutions with the same seatings have the same hash whichever model holds them.
+ */
+public final class Zobrist {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param person
+     *            the person sat
+     * @param course
+     *            the course
+     * @param table
+     *            the table they sit at
+     * @return the key of the seating
+     */
+    public static long key(Person person, Course course, Table table) {
+        long key = mix(person.getId() + GOLDEN_GAMMA);
+        key = mix(key + course.getId() * GOLDEN_GAMMA);
+        return mix(key + table.getId() * GOLDEN_GAMMA);
+    }
+
+    /* the splitmix64 finaliser, spreads every bit of the input over the output */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,65 @@
+package co.uk.threeonefour.seatingplan;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+import co.uk.threeonefour.seatingplan.SeatingPlan.Change;
+import co.uk.threeonefour.seatingplan.SeatingPlan.ScoredSolution;
+import co.uk.threeonefour.seatingplan.model.Scenario;
+import picocli.CommandLine;
+
+/**
+ * Counts the bytes the current thread allocates over many iterations of the swap strategy's inner loop with the array
+ * model, a random change kept if it improves the score and undone if not, as the anneal and tabu strategies make too.
+ * Once under way an iteration shouldn't allocate at all, so the count is checked to be well under a byte an iteration,
+ * which allows for the odd allocation by the JVM itself but not for anything made every iteration.
+ */
+public class SwapIterationAllocationTest {
+
+    private static final int WARM_UP_ITERATIONS = 50000;
+
+    private static final int ITERATIONS = 200000;
+
+    @Test
+    public void swapIterationDoesNotAllocate() {
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        SeatingPlan seatingPlan = new SeatingPlan();
+        new CommandLine(seatingPlan).parseArgs("-pf", "unused", "-c", "4", "-so", "array");
+        Scenario scenario = ScenarioGenerator.generate(400, 80, 4, new Random(1));
+        Random random = new Random(1);
+        ScoredSolution scoredSolution = seatingPlan.new ScoredSolution(scenario,
+                seatingPlan.createSolution(scenario, random));
+
+        /* so classes are loaded and the loop compiled before counting */
+        swapIterations(scoredSolution, random, WARM_UP_ITERATIONS);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        swapIterations(scoredSolution, random, ITERATIONS);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated + " bytes allocated over " + ITERATIONS + " iterations", allocated < ITERATIONS / 10);
+    }
+
+    private static void swapIterations(ScoredSolution scoredSolution, Random random, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Change change = scoredSolution.randomChange(random);
+            if (!change.isSkipped()) {
+                if (!scoredSolution.isImprovement()) {
+                    scoredSolution.undoChange();
+                } else {
+                    scoredSolution.keepChange();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package co.uk.threeonefour.seatingplan.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.junit.Test;
+
+import co.uk.threeonefour.seatingplan.ScenarioGenerator;
+
+/**
+ * Makes the same seeded seatings, swaps, moves, undos and copies on every solution model and checks they all agree
+ * with the list of triples, the reference implementation, on where everyone sits, who they meet and where the hosts
+ * are. Hosts are moved as well as guests so the host counts are checked when they aren't valid too.
+ */
+public class SolutionModelsTest {
+
+    private static final int STEPS = 400;
+
+    @Test
+    public void modelsAgreeWithByteTables() {
+        checkModelsAgree(ScenarioGenerator.generate(60, 10, 4, new Random(1)), new Random(2), 10);
+    }
+
+    @Test
+    public void modelsAgreeWithShortTables() {
+        /* more tables than the compact model holds in bytes */
+        checkModelsAgree(ScenarioGenerator.generate(520, 260, 3, new Random(3)), new Random(4), 100);
+    }
+
+    /*
+     * The hash and host counts are compared on every step and everyone's seatings every fullCheckInterval steps, as the
+     * triple model makes that slow for a large scenario
+     */
+    private static void checkModelsAgree(Scenario scenario, Random random, int fullCheckInterval) {
+
+        List<Solution> solutions = new ArrayList<>(Arrays.asList(new TripleListSolution(),
+                new IntArraySolution(scenario), new BitSetSolution(scenario), new CompactSolution(scenario)));
+
+        List<Person> people = IterableUtils.toList(scenario.findAllPeople());
+        List<Person> hosts = IterableUtils.toList(scenario.findAllPeopleByHost(true));
+        List<Person> nonHosts = new ArrayList<>(IterableUtils.toList(scenario.findAllPeopleByHost(false)));
+        List<Course> courses = IterableUtils.toList(scenario.findAllCourses());
+        List<Table> tables = IterableUtils.toList(scenario.findAllTables());
+
+        /* a host at each table and everyone else dealt round the tables */
+        for (Course course : courses) {
+            for (int i = 0; i < hosts.size(); i++) {
+                seat(solutions, hosts.get(i), course, tables.get(i));
+            }
+            Collections.shuffle(nonHosts, random);
+            for (int i = 0; i < nonHosts.size(); i++) {
+                seat(solutions, nonHosts.get(i), course, tables.get(i % tables.size()));
+            }
+        }
+        checkAll(solutions, people, courses, tables);
+
+        List<Solution> copies = null;
+        for (int step = 0; step < STEPS; step++) {
+
+            boolean recording = random.nextBoolean();
+            if (recording) {
+                solutions.forEach(Solution::beginChanges);
+            }
+
+            int changes = 1 + random.nextInt(3);
+            for (int change = 0; change < changes; change++) {
+                Course course = courses.get(random.nextInt(courses.size()));
+                Person person1 = people.get(random.nextInt(people.size()));
+                Person person2 = people.get(random.nextInt(people.size()));
+                /* the strategies never swap someone with themself, which the triple model doesn't allow for */
+                if (random.nextBoolean() && !person1.equals(person2)) {
+                    solutions.forEach(solution -> solution.swapPeopleOnCourse(course, person1, person2));
+                } else {
+                    Table table = tables.get(random.nextInt(tables.size()));
+                    solutions.forEach(solution -> solution.movePersonOnCourseToTable(person1, course, table));
+                }
+            }
+
+            if (recording) {
+                if (random.nextBoolean()) {
+                    solutions.forEach(Solution::rollbackChanges);
+                } else {
+                    solutions.forEach(Solution::commitChanges);
+                }
+            }
+
+            checkCounts(solutions);
+            if (step % fullCheckInterval == 0) {
+                checkAll(solutions, people, courses, tables);
+            }
+
+            /* copies must carry on as they were whatever happens to the solutions they were copied from */
+            if (step == STEPS / 2) {
+                copies = new ArrayList<>();
+                for (Solution solution : solutions) {
+                    copies.add(solution.copy());
+                }
+            }
+        }
+
+        checkAll(solutions, people, courses, tables);
+        checkAll(copies, people, courses, tables);
+    }
+
+    private static void seat(List<Solution> solutions, Person person, Course course, Table table) {
+        for (Solution solution : solutions) {
+            solution.addSeating(person, course, table);
+        }
+    }
+
+    /* what is cheap to compare for every model on every step */
+    private static void checkCounts(List<Solution> solutions) {
+        Solution reference = solutions.get(0);
+        for (Solution solution : solutions) {
+            String model = solution.getClass().getSimpleName();
+            assertEquals(model + " hash", reference.getHash(), solution.getHash());
+            assertEquals(model + " course tables with one host", reference.countAllCourseTablesWithOneHost(),
+                    solution.countAllCourseTablesWithOneHost());
+            assertEquals(model + " hosts at one table", reference.countAllHostsAtOneTable(),
+                    solution.countAllHostsAtOneTable());
+        }
+    }
+
+    private static void checkAll(List<Solution> solutions, List<Person> people, List<Course> courses,
+            List<Table> tables) {
+
+        checkCounts(solutions);
+
+        Solution reference = solutions.get(0);
+        for (Solution solution : solutions.subList(1, solutions.size())) {
+            String model = solution.getClass().getSimpleName();
+
+            for (Person person : people) {
+                for (Course course : courses) {
+                    assertEquals(model + " table of " + person + " on " + course,
+                            reference.findTableByPersonAndCourse(person, course),
+                            solution.findTableByPersonAndCourse(person, course));
+                }
+                assertEquals(model + " people met by " + person,
+                        reference.countAllDistinctPeopleMetByPerson(person),
+                        solution.countAllDistinctPeopleMetByPerson(person));
+                assertEquals(model + " people met by " + person,
+                        new HashSet<>(IterableUtils.toList(reference.findAllDistinctPeopleMetByPerson(person))),
+                        new HashSet<>(IterableUtils.toList(solution.findAllDistinctPeopleMetByPerson(person))));
+                assertEquals(model + " tables sat at by " + person, reference.countAllDistinctTablesByPerson(person),
+                        solution.countAllDistinctTablesByPerson(person));
+                assertEquals(model + " tables sat at by " + person,
+                        new HashSet<>(IterableUtils.toList(reference.findAllDistinctTablesByPerson(person))),
+                        new HashSet<>(IterableUtils.toList(solution.findAllDistinctTablesByPerson(person))));
+            }
+
+            /* the pairs each person sat next to in the list and the first person */
+            for (int i = 0; i < people.size(); i++) {
+                for (Person other : Arrays.asList(people.get(0), people.get((i + 1) % people.size()))) {
+                    assertEquals(model + " courses together of " + people.get(i) + " and " + other,
+                            reference.countAllCoursesTogetherByPeople(people.get(i), other),
+                            solution.countAllCoursesTogetherByPeople(people.get(i), other));
+                }
+            }
+
+            for (Course course : courses) {
+                for (Table table : tables) {
+                    String where = " at " + table + " on " + course;
+                    assertEquals(model + " people" + where, reference.countAllPeopleByCourseAndTable(course, table),
+                            solution.countAllPeopleByCourseAndTable(course, table));
+                    assertEquals(model + " hosts" + where,
+                            reference.countAllPeopleByHostAndCourseAndTable(true, course, table),
+                            solution.countAllPeopleByHostAndCourseAndTable(true, course, table));
+                    assertEquals(model + " people met" + where,
+                            reference.countAllDistinctPeopleMetByCourseAndTable(course, table),
+                            solution.countAllDistinctPeopleMetByCourseAndTable(course, table));
+                    assertEquals(model + " people seated" + where,
+                            new HashSet<>(IterableUtils.toList(reference.findAllPeopleByCourseAndTable(course, table))),
+                            new HashSet<>(IterableUtils.toList(solution.findAllPeopleByCourseAndTable(course, table))));
+                }
+            }
+
+            assertEquals(model + " seatings", new HashSet<>(IterableUtils.toList(reference.findAllSeatings())),
+                    new HashSet<>(IterableUtils.toList(solution.findAllSeatings())));
+        }
+    }
+}